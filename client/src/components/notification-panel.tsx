@@ -1,7 +1,7 @@
 import React, { useEffect, useState } from 'react';
 import axios from 'axios';
 import useNotificationSocket from '@/hooks/use-notification-socket';
-import { Notification } from '@/types/notification-types';
+import { Notification, NotificationPage, UnreadCount } from '@/types/notification-types';
 import { Bell, Check, Clock, Trash } from 'lucide-react';
 import { formatDistanceToNow } from 'date-fns';
 
@@ -9,19 +9,29 @@ interface Props {
   userId: number;
 }
 
+const PAGE_SIZE = 20;
+
 const NotificationPanel: React.FC<Props> = ({ userId }) => {
   const [notifications, setNotifications] = useState<Notification[]>([]);
+  const [nextCursor, setNextCursor] = useState<string | null>(null);
+  const [unreadCount, setUnreadCount] = useState(0);
   const [isLoading, setIsLoading] = useState(true);
+  const [isLoadingMore, setIsLoadingMore] = useState(false);
   const [error, setError] = useState<string | null>(null);
 
+  const fetchPage = (after: string | null) =>
+    axios.get<NotificationPage>('http://localhost:8082/api/notifications', {
+      params: { userId, limit: PAGE_SIZE, ...(after ? { after } : {}) },
+    });
+
   useEffect(() => {
     setIsLoading(true);
     setError(null);
     
-    axios
-      .get<Notification[]>(`http://localhost:8082/api/notifications?userId=${userId}`)
+    fetchPage(null)
       .then((res) => {
-        setNotifications(res.data);
+        setNotifications(res.data.items);
+        setNextCursor(res.data.nextCursor);
         setIsLoading(false);
       })
       .catch((err) => {
@@ -29,11 +39,42 @@ const NotificationPanel: React.FC<Props> = ({ userId }) => {
         setError('Could not load notifications. Please try again later.');
         setIsLoading(false);
       });
+
+    // Only the loaded pages are in memory, so the badge comes from the server's counter
+    axios
+      .get<UnreadCount>('http://localhost:8082/api/notifications/unread-count', { params: { userId } })
+      .then((res) => setUnreadCount(res.data.unread))
+      .catch((err) => {
+        console.error('Failed to fetch unread count:', err);
+      });
   }, [userId]);
 
-  useNotificationSocket(userId, (newNotification: Notification) => {
-    setNotifications((prev) => [newNotification, ...prev]);
-  });
+  const loadMore = () => {
+    if (!nextCursor || isLoadingMore) return;
+    setIsLoadingMore(true);
+    fetchPage(nextCursor)
+      .then((res) => {
+        // A row pushed over the socket meanwhile may already be in the list
+        setNotifications((prev) => {
+          const seen = new Set(prev.map((n) => n.id));
+          return [...prev, ...res.data.items.filter((n) => !seen.has(n.id))];
+        });
+        setNextCursor(res.data.nextCursor);
+      })
+      .catch((err) => {
+        console.error('Failed to fetch more notifications:', err);
+      })
+      .finally(() => setIsLoadingMore(false));
+  };
+
+  // Aggregates are updated in place, so a push may replace a row already shown
+  useNotificationSocket(
+    userId,
+    (newNotification: Notification) => {
+      setNotifications((prev) => [newNotification, ...prev.filter((n) => n.id !== newNotification.id)]);
+    },
+    (count: UnreadCount) => setUnreadCount(count.unread)
+  );
 
   const markAsRead = (id: number, e: React.MouseEvent) => {
     e.stopPropagation();
@@ -62,8 +103,9 @@ const NotificationPanel: React.FC<Props> = ({ userId }) => {
   };
 
   const markAllAsRead = () => {
-    axios.post(`http://localhost:8082/api/notifications/read-all?userId=${userId}`)
-      .then(() => {
+    axios.post<UnreadCount>(`http://localhost:8082/api/notifications/read-all?userId=${userId}`)
+      .then((res) => {
+        setUnreadCount(res.data.unread);
         setNotifications((prev) =>
           prev.map((n) => ({ ...n, isRead: true }))
         );
@@ -73,8 +115,6 @@ const NotificationPanel: React.FC<Props> = ({ userId }) => {
       });
   };
 
-  const unreadCount = notifications.filter(n => !n.isRead).length;
-
   if (isLoading) {
     return (
       <div className="flex items-center justify-center p-6">
@@ -97,11 +137,11 @@ const NotificationPanel: React.FC<Props> = ({ userId }) => {
         <div className="flex items-center space-x-2">
           <Bell size={18} className="text-blue-600" />
           <h3 className="font-semibold text-lg">Notifications</h3>
-          {/* {unreadCount > 0 && (
+          {unreadCount > 0 && (
             <span className="bg-blue-600 text-white text-xs px-2 py-1 rounded-full">
               {unreadCount}
             </span>
-          )} */}
+          )}
         </div>
         {/* {notifications.length > 0 && (
           <button 
@@ -159,6 +199,15 @@ const NotificationPanel: React.FC<Props> = ({ userId }) => {
             })}
           </ul>
         )}
+        {nextCursor && (
+          <button
+            onClick={loadMore}
+            disabled={isLoadingMore}
+            className="w-full p-3 text-sm text-blue-600 hover:bg-gray-50 border-t disabled:text-gray-400"
+          >
+            {isLoadingMore ? 'Loading...' : 'Load more'}
+          </button>
+        )}
       </div>
     </div>
   );
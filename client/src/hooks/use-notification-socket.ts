@@ -1,20 +1,36 @@
-import { Notification } from '@/types/notification-types';
-import { useEffect } from 'react';
+import { Notification, UnreadCount } from '@/types/notification-types';
+import { useEffect, useRef } from 'react';
 import SockJS from 'sockjs-client';
 import { over, Client } from 'stompjs';
 
 export default function useNotificationSocket(
   userId: number,
-  onNotification: (n: Notification) => void
+  onNotification: (n: Notification) => void,
+  onUnreadCount?: (count: UnreadCount) => void
 ) {
+  // Kept in refs so new callbacks on each render don't reconnect the socket
+  const notificationRef = useRef(onNotification);
+  const unreadCountRef = useRef(onUnreadCount);
+  notificationRef.current = onNotification;
+  unreadCountRef.current = onUnreadCount;
+
   useEffect(() => {
     const socket = new SockJS('http://localhost:8082/ws');
     const stompClient: Client = over(socket);
 
-    stompClient.connect({}, () => {
-      stompClient.subscribe(`/user/${userId}/queue/notifications`, (message) => {
+    // The server binds the session to the user from this token, so user destinations resolve on any node
+    const token = localStorage.getItem('token');
+    const headers = token ? { Authorization: `Bearer ${token}` } : {};
+
+    stompClient.connect(headers, () => {
+      stompClient.subscribe('/user/queue/notifications', (message) => {
         const notification: Notification = JSON.parse(message.body);
-        onNotification(notification);
+        notificationRef.current(notification);
+      });
+      // The server's unread counter, pushed whenever it changes
+      stompClient.subscribe('/user/queue/notifications/count', (message) => {
+        const count: UnreadCount = JSON.parse(message.body);
+        unreadCountRef.current?.(count);
       });
     });
 
@@ -23,5 +39,5 @@ export default function useNotificationSocket(
         stompClient.disconnect(() => {});
       }
     };
-  }, [userId, onNotification]);
+  }, [userId]);
 }
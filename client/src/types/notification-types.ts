@@ -7,3 +7,15 @@ export interface Notification {
     isRead: boolean;
     createdAt: string;
 }
+
+// The unread badge count; delta is the change that produced it, 0 for a plain read
+export interface UnreadCount {
+    unread: number;
+    delta: number;
+}
+
+// One keyset page of the inbox; pass nextCursor as `after` to get the next one
+export interface NotificationPage {
+    items: Notification[];
+    nextCursor: string | null;
+}
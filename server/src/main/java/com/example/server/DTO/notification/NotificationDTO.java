@@ -0,0 +1,25 @@
+package com.example.server.DTO.notification;
+
+import com.example.server.DTO.user.FollowDTO;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+public class NotificationDTO {
+    private Long id;
+    private Long recipientId;
+    private Long actorId;
+    private String type;
+    private Long targetId;
+    private String message;
+    private boolean isRead;
+
+    // Total actors behind an aggregate, and the most recent few of them
+    private int actorCount;
+    private List<FollowDTO> actors;
+
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+}
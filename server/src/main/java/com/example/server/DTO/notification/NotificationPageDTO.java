@@ -0,0 +1,19 @@
+package com.example.server.DTO.notification;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class NotificationPageDTO {
+    private List<NotificationDTO> items;
+
+    // Opaque "createdAt,id" cursor for the next page, null when there are no more notifications
+    private String nextCursor;
+}
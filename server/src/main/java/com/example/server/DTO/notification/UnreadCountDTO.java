@@ -0,0 +1,17 @@
+package com.example.server.DTO.notification;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class UnreadCountDTO {
+    private long unread;
+
+    // Change that produced this count; 0 for a plain read of the counter
+    private long delta;
+}
@@ -15,4 +15,7 @@ public class ContentBlockDTO {
     private String url;
     private Integer videoDuration;
     private int position;
+    // Responsive variants of an IMAGE block ("url 320w, url 640w, ..."), once generated
+    private String srcset;
+    private String placeholder;
 }
@@ -0,0 +1,37 @@
+package com.example.server.DTO.post;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Keyset position in the published feed, serialized as {@code <createdAt>,<id>}.
+ */
+@Getter
+@AllArgsConstructor
+public class FeedCursor {
+    private final LocalDateTime createdAt;
+    private final Long id;
+
+    public static FeedCursor parse(String value) {
+        int separator = value.lastIndexOf(',');
+        if (separator <= 0 || separator == value.length() - 1) {
+            throw new IllegalArgumentException("Invalid feed cursor: " + value);
+        }
+        try {
+            return new FeedCursor(
+                    LocalDateTime.parse(value.substring(0, separator).trim()),
+                    Long.parseLong(value.substring(separator + 1).trim())
+            );
+        } catch (DateTimeParseException | NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid feed cursor: " + value, e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return createdAt + "," + id;
+    }
+}
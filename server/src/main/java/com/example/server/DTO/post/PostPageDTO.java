@@ -0,0 +1,19 @@
+package com.example.server.DTO.post;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class PostPageDTO {
+    private List<PostDTO> items;
+
+    // Opaque "createdAt,id" cursor for the next page, null when there are no more posts
+    private String nextCursor;
+}
@@ -0,0 +1,17 @@
+package com.example.server.DTO.search;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchPageDTO {
+    private List<SearchResultDTO> items;
+    private int page;
+    private int size;
+    private boolean hasNext;
+}
@@ -0,0 +1,19 @@
+package com.example.server.DTO.search;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchResultDTO {
+    private String type; // POST or PLAN
+    private String id;
+    private String title;
+    private String snippet;
+    private LocalDateTime createdAt;
+    private double rank;
+}
@@ -0,0 +1,50 @@
+package com.example.server.config;
+
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.spi.CachingProvider;
+import java.util.Collections;
+
+/**
+ * Hibernate second-level cache backed by Caffeine through JCache. Region sizes and TTLs
+ * live in {@code application.conf}; hit/miss/eviction counts are published as metrics.
+ */
+@Configuration
+public class CacheConfig {
+
+    private final MeterRegistry meterRegistry;
+
+    public CacheConfig(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager() {
+        CachingProvider provider = Caching.getCachingProvider(CaffeineCachingProvider.class.getName());
+        return provider.getCacheManager(provider.getDefaultURI(), CacheConfig.class.getClassLoader());
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer(CacheManager hibernateCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+    }
+
+    // Hibernate creates its regions while the EntityManagerFactory starts, so bind once the app is ready
+    @EventListener(ApplicationReadyEvent.class)
+    public void bindCacheMetrics(ApplicationReadyEvent event) {
+        CacheManager cacheManager = event.getApplicationContext().getBean("hibernateCacheManager", CacheManager.class);
+        for (String name : cacheManager.getCacheNames()) {
+            JCacheMetrics.monitor(meterRegistry, cacheManager.getCache(name), Collections.emptyList());
+        }
+    }
+}
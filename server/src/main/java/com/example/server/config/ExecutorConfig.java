@@ -0,0 +1,56 @@
+package com.example.server.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Dedicated executors for background work, kept separate from the request and websocket pools.
+ */
+@Configuration
+public class ExecutorConfig {
+
+    // Timeline fan-out is in-memory work; when the queue is full the publishing thread does it itself
+    @Bean
+    public ThreadPoolTaskExecutor timelineFanoutExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(2);
+        executor.setQueueCapacity(1000);
+        executor.setThreadNamePrefix("timeline-fanout-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        return executor;
+    }
+
+    // Image resizing is CPU and memory heavy (a full-size decode can take ~200 MB), so the pool
+    // bounds how many run at once; a full queue rejects and the upload goes without derivatives
+    @Bean
+    public ThreadPoolTaskExecutor imageDerivativeExecutor(@Value("${media.derivatives.threads:2}") int threads,
+                                                          @Value("${media.derivatives.queue-capacity:50}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("image-derivative-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        return executor;
+    }
+
+    // BCrypt is pure CPU, so one thread per core is all it can use; a full queue rejects
+    // (AbortPolicy) so callers fail fast rather than hash on request threads
+    @Bean
+    public ThreadPoolTaskExecutor passwordHashingExecutor(@Value("${auth.password.threads:0}") int threads,
+                                                          @Value("${auth.password.queue-capacity:32}") int queueCapacity) {
+        int size = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(size);
+        executor.setMaxPoolSize(size);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("password-hash-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        return executor;
+    }
+}
@@ -1,6 +1,6 @@
 package com.example.server.config;
 
-import com.example.server.util.JwtTokenProvider;
+import com.example.server.service.auth.RefreshTokenService;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
@@ -23,13 +23,13 @@ public class OAuth2SuccessHandler extends SimpleUrlAuthenticationSuccessHandler
     private static final Logger logger = LoggerFactory.getLogger(OAuth2SuccessHandler.class);
     private static final String FALLBACK_EMAIL_SUFFIX = "@unknownprovider.com";
 
-    private final JwtTokenProvider jwtUtil;
+    private final RefreshTokenService refreshTokenService;
 
     @Value("${app.oauth2.redirect-url:http://localhost:5173}")
     private String redirectBaseUrl;
 
-    public OAuth2SuccessHandler(JwtTokenProvider jwtUtil) {
-        this.jwtUtil = jwtUtil;
+    public OAuth2SuccessHandler(RefreshTokenService refreshTokenService) {
+        this.refreshTokenService = refreshTokenService;
         this.setUseReferer(false);
     }
 
@@ -50,7 +50,8 @@ public class OAuth2SuccessHandler extends SimpleUrlAuthenticationSuccessHandler
                 return;
             }
 
-            String jwt = jwtUtil.generateAccessToken(email, getProviderName(authentication));
+            // A tracked session, so signing out everywhere also rejects this access token
+            String jwt = refreshTokenService.startSession(email, getProviderName(authentication)).accessToken();
 
             String encodedToken = URLEncoder.encode(jwt, StandardCharsets.UTF_8);
             String redirectUrl = String.format("%s/callback?token=%s", redirectBaseUrl, encodedToken);
@@ -0,0 +1,85 @@
+package com.example.server.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Sends {@code @Transactional(readOnly = true)} work to Postgres replicas and everything else
+ * to the primary. Only active when {@code datasource.replica.urls} is set; without it Boot's
+ * single datasource is used as before.
+ * <p>
+ * The lazy proxy defers fetching a physical connection until the first statement, by which
+ * point the transaction's read-only flag is known and {@link ReplicaRoutingDataSource} can
+ * pick the pool. Each replica gets its own Hikari pool,
+ * configured like the primary's and reporting its own {@code hikaricp.*} metrics.
+ */
+@Configuration
+@ConditionalOnExpression("!'${datasource.replica.urls:}'.isBlank()")
+public class ReplicaDataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(HikariDataSource primaryDataSource,
+                                                             @Value("${datasource.replica.urls}") String urls,
+                                                             @Value("${datasource.replica.username:}") String username,
+                                                             @Value("${datasource.replica.password:}") String password,
+                                                             @Value("${datasource.replica.maximum-pool-size:0}") int maximumPoolSize,
+                                                             @Value("${datasource.replica.read-your-writes-seconds:5}") long readYourWritesSeconds,
+                                                             MeterRegistry meterRegistry) {
+        List<HikariDataSource> replicas = new ArrayList<>();
+        List<String> jdbcUrls = Arrays.stream(urls.split(",")).map(String::trim).filter(url -> !url.isEmpty()).toList();
+        for (int i = 0; i < jdbcUrls.size(); i++) {
+            // Constructed without a config so the pool starts on first use, not at boot
+            HikariDataSource replica = new HikariDataSource();
+            primaryDataSource.copyStateTo(replica);
+            replica.setJdbcUrl(jdbcUrls.get(i));
+            replica.setPoolName("replica-" + (i + 1));
+            replica.setReadOnly(true);
+            if (!username.isEmpty()) {
+                replica.setUsername(username);
+                replica.setPassword(password);
+            }
+            if (maximumPoolSize > 0) {
+                replica.setMaximumPoolSize(maximumPoolSize);
+            }
+            replica.setMetricRegistry(null);
+            replica.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            replicas.add(replica);
+        }
+        return new ReplicaRoutingDataSource(primaryDataSource, replicas,
+                Duration.ofSeconds(readYourWritesSeconds), meterRegistry);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+        // Fixed up front so the proxy never opens a connection just to discover them
+        proxy.setDefaultAutoCommit(true);
+        proxy.setDefaultTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+        return proxy;
+    }
+}
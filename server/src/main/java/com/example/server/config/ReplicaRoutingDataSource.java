@@ -0,0 +1,160 @@
+package com.example.server.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Routes each physical connection by the transaction it is fetched for: read-only
+ * transactions go round-robin over the replica pools, falling back to the primary when a
+ * replica cannot hand one out, and everything else goes to the primary.
+ * <p>
+ * The decision reads {@link TransactionSynchronizationManager#isCurrentTransactionReadOnly()}
+ * rather than the connection's read-only flag, because JPA with delayed connection acquisition
+ * never sets that flag. Behind a {@code LazyConnectionDataSourceProxy} the connection is only
+ * fetched at the first statement, by which point the transaction is fully set up.
+ * <p>
+ * With a read-your-writes window, a user whose own write transaction committed within the
+ * window reads from the primary, so they never see a replica that has not caught up with them.
+ * <p>
+ * A session reading from a replica still uses the second-level cache but never fills it: an
+ * entity evicted after a write would otherwise be re-cached from a replica that has not applied
+ * the write yet, and served stale for the whole cache TTL.
+ */
+public class ReplicaRoutingDataSource extends AbstractDataSource implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    private final HikariDataSource primary;
+    private final List<HikariDataSource> replicas;
+    private final Cache<String, Boolean> recentWriters;
+    private final AtomicInteger next = new AtomicInteger();
+    private final Counter toReplica;
+    private final Counter toPrimary;
+    private final Counter fallbacks;
+
+    public ReplicaRoutingDataSource(HikariDataSource primary, List<HikariDataSource> replicas,
+                                    Duration readYourWritesWindow, MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.replicas = List.copyOf(replicas);
+        this.recentWriters = readYourWritesWindow.isZero() ? null : Caffeine.newBuilder()
+                .expireAfterWrite(readYourWritesWindow)
+                .build();
+        this.toReplica = meterRegistry.counter("datasource.routing.reads", "target", "replica");
+        this.toPrimary = meterRegistry.counter("datasource.routing.reads", "target", "primary");
+        this.fallbacks = meterRegistry.counter("datasource.routing.reads", "target", "fallback");
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return route(DataSource::getConnection);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return route(dataSource -> dataSource.getConnection(username, password));
+    }
+
+    private Connection route(ConnectionSource source) throws SQLException {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            trackWrite();
+            return source.from(primary);
+        }
+        if (recentWriters != null) {
+            String user = currentUser();
+            if (user != null && recentWriters.getIfPresent(user) != null) {
+                toPrimary.increment();
+                return source.from(primary);
+            }
+        }
+        HikariDataSource replica = replicas.get(Math.floorMod(next.getAndIncrement(), replicas.size()));
+        try {
+            Connection connection = source.from(replica);
+            toReplica.increment();
+            bypassCacheStore();
+            return connection;
+        } catch (SQLException e) {
+            fallbacks.increment();
+            logger.warn("Replica pool {} unavailable, reading from primary: {}", replica.getPoolName(), e.getMessage());
+            return source.from(primary);
+        }
+    }
+
+    // Write transactions start the read-your-writes window for their user once they commit
+    private void trackWrite() {
+        if (recentWriters == null || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        String user = currentUser();
+        if (user == null) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                recentWriters.put(user, Boolean.TRUE);
+            }
+        });
+    }
+
+    // The session outlives the transaction under open-in-view, so its mode is restored afterwards
+    private static void bypassCacheStore() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        for (Object resource : TransactionSynchronizationManager.getResourceMap().values()) {
+            if (!(resource instanceof EntityManagerHolder holder)) {
+                continue;
+            }
+            Session session = holder.getEntityManager().unwrap(Session.class);
+            CacheMode previous = session.getCacheMode();
+            if (!previous.isPutEnabled()) {
+                continue;
+            }
+            session.setCacheMode(CacheMode.GET);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (session.isOpen()) {
+                        session.setCacheMode(previous);
+                    }
+                }
+            });
+        }
+    }
+
+    private static String currentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication == null || !authentication.isAuthenticated() ? null : authentication.getName();
+    }
+
+    @Override
+    public void close() {
+        replicas.forEach(HikariDataSource::close);
+    }
+
+    @FunctionalInterface
+    private interface ConnectionSource {
+        Connection from(DataSource dataSource) throws SQLException;
+    }
+}
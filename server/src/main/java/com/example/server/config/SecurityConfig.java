@@ -1,16 +1,19 @@
 package com.example.server.config;
 
+import com.example.server.security.BoundedPasswordEncoder;
 import com.example.server.service.CustomOAuth2UserService;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.web.cors.CorsConfiguration;
@@ -76,8 +79,11 @@ public class SecurityConfig {
     }
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder(12);
+    public PasswordEncoder passwordEncoder(@Value("${auth.password.bcrypt-cost:12}") int cost,
+                                           @Value("${auth.password.max-wait-ms:2000}") long maxWaitMillis,
+                                           @Qualifier("passwordHashingExecutor") ThreadPoolTaskExecutor executor,
+                                           MeterRegistry meterRegistry) {
+        return new BoundedPasswordEncoder(cost, executor, maxWaitMillis, meterRegistry);
     }
 
     @Bean
@@ -0,0 +1,42 @@
+package com.example.server.config;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Moves {@code content_blocks_seq} past ids that were assigned by the old IDENTITY column.
+ * Runs once the schema update has created the sequence and before the server takes traffic;
+ * after the first run the sequence is always ahead and this is a no-op.
+ */
+@Component
+public class SequenceAligner implements InitializingBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(SequenceAligner.class);
+
+    // Next value the sequence would hand out is last_value, or last_value + increment once called
+    private static final String ALIGN_CONTENT_BLOCKS_SEQ =
+            "SELECT setval('content_blocks_seq', m.max_id + 1, false) " +
+            "FROM (SELECT COALESCE(MAX(id), 0) AS max_id FROM content_blocks) m, content_blocks_seq s " +
+            "WHERE m.max_id >= s.last_value + CASE WHEN s.is_called THEN 50 ELSE 0 END";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // The EntityManagerFactory dependency orders this after Hibernate's schema update
+    public SequenceAligner(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        List<Long> aligned = jdbcTemplate.queryForList(ALIGN_CONTENT_BLOCKS_SEQ, Long.class);
+        if (!aligned.isEmpty()) {
+            logger.info("Aligned content_blocks_seq to start at {}", aligned.get(0));
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.server.config;
+
+import com.example.server.model.user.User;
+import com.example.server.repository.user.UserRepository;
+import com.example.server.security.JwtAuthenticator;
+import com.example.server.security.JwtPrincipal;
+import io.jsonwebtoken.JwtException;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Authenticates STOMP CONNECT frames from their {@code Authorization} header and binds the
+ * session to the user's id, which is the name {@code convertAndSendToUser} addresses. A
+ * connection without a token stays anonymous and receives no user destinations.
+ * <p>
+ * Clients may only subscribe to their own {@code /user/**} destinations, which needs an
+ * authenticated session, and only send to {@code /app/**}. Broker destinations such as
+ * {@code /topic/**} are server-side only; in relay mode they carry the user registry and
+ * unresolved user messages of every node.
+ */
+@Component
+public class StompAuthChannelInterceptor implements ChannelInterceptor {
+
+    private static final String USER_PREFIX = "/user/";
+    private static final String APP_PREFIX = "/app/";
+
+    private final JwtAuthenticator jwtAuthenticator;
+    private final UserRepository userRepository;
+
+    public StompAuthChannelInterceptor(JwtAuthenticator jwtAuthenticator, UserRepository userRepository) {
+        this.jwtAuthenticator = jwtAuthenticator;
+        this.userRepository = userRepository;
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null) {
+            return message;
+        }
+        if (accessor.getMessageType() == SimpMessageType.SUBSCRIBE) {
+            checkSubscribe(accessor);
+            return message;
+        }
+        if (accessor.getMessageType() == SimpMessageType.MESSAGE) {
+            checkSend(accessor);
+            return message;
+        }
+        if (accessor.getCommand() != StompCommand.CONNECT) {
+            return message;
+        }
+        String header = accessor.getFirstNativeHeader("Authorization");
+        if (header == null || !header.startsWith("Bearer ")) {
+            return message;
+        }
+        try {
+            JwtPrincipal principal = jwtAuthenticator.authenticate(header.substring(7).trim());
+            User user = userRepository.findByEmail(principal.email())
+                    .orElseThrow(() -> new MessageDeliveryException("Unknown user"));
+            accessor.setUser(new UsernamePasswordAuthenticationToken(user.getId().toString(), null,
+                    List.of(new SimpleGrantedAuthority("ROLE_USER"))));
+        } catch (JwtException | IllegalArgumentException e) {
+            throw new MessageDeliveryException("Invalid token");
+        }
+        return message;
+    }
+
+    private static void checkSubscribe(StompHeaderAccessor accessor) {
+        String destination = accessor.getDestination();
+        if (destination == null || !destination.startsWith(USER_PREFIX) || destination.contains("..")) {
+            throw new MessageDeliveryException("Subscribing to " + destination + " is not allowed");
+        }
+        if (accessor.getUser() == null) {
+            throw new MessageDeliveryException("User destinations need an authenticated connection");
+        }
+    }
+
+    private static void checkSend(StompHeaderAccessor accessor) {
+        String destination = accessor.getDestination();
+        if (destination == null || !destination.startsWith(APP_PREFIX)) {
+            throw new MessageDeliveryException("Sending to " + destination + " is not allowed");
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.server.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+
+/**
+ * Beans for {@code spring.threads.virtual.enabled=true}. Boot itself moves Tomcat request
+ * handling and the {@code @Scheduled}/{@code @Async} executors to virtual threads; this adds
+ * the STOMP channels. The mode only takes effect on a Java 21+ runtime.
+ * <p>
+ * Database concurrency stays bounded by the Hikari pool: with unbounded request threads,
+ * callers wait in {@code getConnection} (up to {@code connection-timeout}) rather than
+ * opening more connections. The CPU-bound pools in {@link ExecutorConfig} stay on platform
+ * threads on purpose, since their size is what limits them.
+ */
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadConfig {
+
+    // One virtual thread per inbound/outbound STOMP message; the limit throttles publishers
+    // instead of queueing without bound when clients flood the channel
+    @Bean
+    public SimpleAsyncTaskExecutor stompChannelExecutor(@Value("${websocket.channel.concurrency-limit:1000}") int concurrencyLimit) {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("stomp-channel-");
+        executor.setVirtualThreads(true);
+        executor.setConcurrencyLimit(concurrencyLimit);
+        return executor;
+    }
+}
@@ -1,17 +1,77 @@
 package com.example.server.config;
 
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
 
+/**
+ * STOMP over SockJS at {@code /ws}. {@code websocket.broker.mode} picks the broker:
+ * {@code simple} (default) is the in-JVM broker, fine for a single node and for tests;
+ * {@code relay} forwards to an external STOMP broker (RabbitMQ, ActiveMQ) so every node
+ * sees every subscription, and shares user sessions between nodes so
+ * {@code convertAndSendToUser} reaches a user connected to any of them.
+ */
 @Configuration
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
+
+    private static final String[] BROKER_PREFIXES = {"/queue/", "/topic/"};
+
+    // Only present in virtual-thread mode; otherwise the channels keep their default pools
+    private final ObjectProvider<SimpleAsyncTaskExecutor> stompChannelExecutor;
+    private final StompAuthChannelInterceptor stompAuthChannelInterceptor;
+
+    @Value("${websocket.broker.mode:simple}")
+    private String brokerMode;
+
+    @Value("${websocket.broker.relay.host:localhost}")
+    private String relayHost;
+
+    @Value("${websocket.broker.relay.port:61613}")
+    private int relayPort;
+
+    @Value("${websocket.broker.relay.virtual-host:}")
+    private String relayVirtualHost;
+
+    @Value("${websocket.broker.relay.login:guest}")
+    private String relayLogin;
+
+    @Value("${websocket.broker.relay.passcode:guest}")
+    private String relayPasscode;
+
+    public WebSocketConfig(@Qualifier("stompChannelExecutor") ObjectProvider<SimpleAsyncTaskExecutor> stompChannelExecutor,
+                           StompAuthChannelInterceptor stompAuthChannelInterceptor) {
+        this.stompChannelExecutor = stompChannelExecutor;
+        this.stompAuthChannelInterceptor = stompAuthChannelInterceptor;
+    }
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
-        config.enableSimpleBroker("/queue/");
+        if ("relay".equalsIgnoreCase(brokerMode)) {
+            var relay = config.enableStompBrokerRelay(BROKER_PREFIXES)
+                    .setRelayHost(relayHost)
+                    .setRelayPort(relayPort)
+                    .setClientLogin(relayLogin)
+                    .setClientPasscode(relayPasscode)
+                    .setSystemLogin(relayLogin)
+                    .setSystemPasscode(relayPasscode);
+            if (!relayVirtualHost.isEmpty()) {
+                relay.setVirtualHost(relayVirtualHost);
+            }
+            // Messages for users with no session on this node are re-published for the other nodes,
+            // and each node shares its connected users so the others can resolve them
+            relay.setUserDestinationBroadcast("/topic/unresolved-user-destination");
+            relay.setUserRegistryBroadcast("/topic/simp-user-registry");
+        } else {
+            config.enableSimpleBroker(BROKER_PREFIXES);
+        }
         config.setApplicationDestinationPrefixes("/app");
         config.setUserDestinationPrefix("/user");
     }
@@ -20,4 +80,15 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
     public void registerStompEndpoints(StompEndpointRegistry registry) {
         registry.addEndpoint("/ws").setAllowedOrigins("*").withSockJS();
     }
-}
\ No newline at end of file
+
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.interceptors(stompAuthChannelInterceptor);
+        stompChannelExecutor.ifAvailable(registration::executor);
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        stompChannelExecutor.ifAvailable(registration::executor);
+    }
+}
@@ -5,13 +5,17 @@ import com.example.server.DTO.auth.AuthResponseDTO;
 import com.example.server.DTO.auth.RegisterRequestDTO;
 import com.example.server.model.user.User;
 import com.example.server.repository.user.UserRepository;
+import com.example.server.security.PasswordHashingBusyException;
 import com.example.server.service.auth.AuthService;
 import com.example.server.service.auth.AuthServiceImpl;
+import com.example.server.service.auth.InvalidRefreshTokenException;
+import com.example.server.service.auth.RefreshTokenService;
 import com.example.server.util.JwtTokenProvider;
 import com.example.server.util.ResponseUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.*;
@@ -35,15 +39,18 @@ public class AuthController {
     private final JwtTokenProvider jwtTokenProvider;
     private static final Logger logger = LoggerFactory.getLogger(AuthController.class);
     private final UserRepository userRepository;
+    private final RefreshTokenService refreshTokenService;
 
     @Autowired
     public AuthController(AuthService authService,
                           AuthenticationManager authenticationManager,
-                          JwtTokenProvider jwtTokenProvider, UserRepository userRepository) {
+                          JwtTokenProvider jwtTokenProvider, UserRepository userRepository,
+                          RefreshTokenService refreshTokenService) {
         this.authService = authService;
         this.authenticationManager = authenticationManager;
         this.jwtTokenProvider = jwtTokenProvider;
         this.userRepository = userRepository;
+        this.refreshTokenService = refreshTokenService;
     }
 
     // Register a new user (email/password)
@@ -57,6 +64,8 @@ public class AuthController {
         } catch (AuthServiceImpl.UserAlreadyExistsException ex) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .body((ex.getMessage()));
+        } catch (PasswordHashingBusyException ex) {
+            throw ex;
         } catch (Exception ex) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body("Unexpected error occurred");
@@ -85,9 +94,10 @@ public class AuthController {
                     new UsernamePasswordAuthenticationToken(request.getEmailOrUsername(), request.getPassword())
             );
 
-            // If authentication is successful, generate tokens
-            String token = jwtTokenProvider.generateAccessToken(user.getEmail(), "local");
-            String refreshToken = jwtTokenProvider.generateRefreshToken(user.getEmail(), "local");
+            // If authentication is successful, start a session and generate its tokens
+            RefreshTokenService.TokenPair tokens = refreshTokenService.startSession(user.getEmail(), "local");
+            String token = tokens.accessToken();
+            String refreshToken = tokens.refreshToken();
 
             logger.info("User {} logged in successfully", user.getEmail());
 
@@ -101,6 +111,16 @@ public class AuthController {
                     .refreshToken(refreshToken)
                     .timestamp(Instant.now())
                     .build());
+        } catch (InternalAuthenticationServiceException e) {
+            // The authentication provider wraps anything the encoder throws; busy still means 503
+            if (e.getCause() instanceof PasswordHashingBusyException busy) {
+                throw busy;
+            }
+            logger.warn("Authentication failed for user {}: {}", request.getEmailOrUsername(), e.getMessage());
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(AuthResponseDTO.builder()
+                            .timestamp(Instant.now())
+                            .build());
         } catch (AuthenticationException e) {
             // Catch authentication failure
             logger.warn("Authentication failed for user {}: {}", request.getEmailOrUsername(), e.getMessage());
@@ -119,8 +139,8 @@ public class AuthController {
     @PostMapping("/refresh-token")
     public ResponseEntity<AuthResponseDTO> refreshToken(@RequestBody Map<String, String> requestBody) {
         String refreshToken = requestBody.get("refreshToken");
-        if (refreshToken == null || !jwtTokenProvider.validateRefreshToken(refreshToken)) {
-            logger.warn("Invalid or expired refresh token provided");
+        if (refreshToken == null) {
+            logger.warn("No refresh token provided");
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                     .body(AuthResponseDTO.builder()
                             .timestamp(Instant.now())
@@ -128,18 +148,23 @@ public class AuthController {
         }
 
         try {
-            String email = jwtTokenProvider.getEmailFromToken(refreshToken);
-            String provider = "local"; // Adjust if provider info is stored in token
-            String newAccessToken = jwtTokenProvider.generateAccessToken(email, provider);
+            // The presented token is spent; the client must keep the rotated one
+            RefreshTokenService.TokenPair tokens = refreshTokenService.rotate(refreshToken);
 
-            logger.info("Refresh token processed successfully for user {}", email);
+            logger.info("Refresh token processed successfully for user {}", tokens.email());
             return ResponseEntity.ok(AuthResponseDTO.builder()
-                    .email(email)
-                    .token(newAccessToken)
-                    .expiresIn(jwtTokenProvider.getExpirationDateFromToken(newAccessToken))
-                    .refreshToken(refreshToken)
+                    .email(tokens.email())
+                    .token(tokens.accessToken())
+                    .expiresIn(jwtTokenProvider.getExpirationDateFromToken(tokens.accessToken()))
+                    .refreshToken(tokens.refreshToken())
                     .timestamp(Instant.now())
                     .build());
+        } catch (InvalidRefreshTokenException e) {
+            logger.warn("Refresh token rejected: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(AuthResponseDTO.builder()
+                            .timestamp(Instant.now())
+                            .build());
         } catch (Exception e) {
             logger.error("Failed to refresh token: {}", e.getMessage());
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -149,6 +174,28 @@ public class AuthController {
         }
     }
 
+    // End the session the refresh token belongs to; its access tokens stop working too
+    @PostMapping("/logout")
+    public ResponseEntity<?> logout(@RequestBody Map<String, String> requestBody) {
+        String refreshToken = requestBody.get("refreshToken");
+        if (refreshToken == null) {
+            return ResponseEntity.badRequest().body(Map.of("error", "refreshToken is required"));
+        }
+        refreshTokenService.revoke(refreshToken);
+        return ResponseEntity.noContent().build();
+    }
+
+    // End every session of the signed-in user
+    @PostMapping("/logout-all")
+    public ResponseEntity<?> logoutAll(Authentication authentication) {
+        if (authentication == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        int revoked = refreshTokenService.revokeAll(authentication.getName());
+        logger.info("Revoked {} sessions for user {}", revoked, authentication.getName());
+        return ResponseEntity.noContent().build();
+    }
+
     // OAuth2 sign-up/login callback
     @GetMapping("/oauth2/callback")
     public ResponseEntity<?> oauth2SignUpOrLogin(@RequestParam(required = false) String token, Authentication authentication) {
@@ -198,8 +245,9 @@ public class AuthController {
             logger.info("OAuth2 user info: email={}, username={}, provider={}", email, username, provider);
 
             String registeredEmail = authService.registerOrGetOAuth2User(email, provider, oAuth2User.getAttributes());
-            String accessToken = jwtTokenProvider.generateAccessToken(registeredEmail, provider);
-            String refreshToken = jwtTokenProvider.generateRefreshToken(registeredEmail, provider);
+            RefreshTokenService.TokenPair tokens = refreshTokenService.startSession(registeredEmail, provider);
+            String accessToken = tokens.accessToken();
+            String refreshToken = tokens.refreshToken();
 
             logger.info("OAuth2 sign-up/login successful for user {} via {}", registeredEmail, provider);
             return ResponseEntity.ok(AuthResponseDTO.builder()
@@ -220,6 +268,15 @@ public class AuthController {
         }
     }
 
+    // Login and registration shed load when password hashing is saturated; clients should back off briefly
+    @ExceptionHandler(PasswordHashingBusyException.class)
+    public ResponseEntity<?> handleHashingBusy(PasswordHashingBusyException e) {
+        logger.warn("Rejected auth request: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(Map.of("error", "Too many sign-in attempts right now, please retry shortly."));
+    }
+
 
     private HttpStatus getStatusFromException(AuthenticationException e) {
         if (e instanceof BadCredentialsException) return HttpStatus.UNAUTHORIZED;
@@ -0,0 +1,107 @@
+package com.example.server.controller;
+
+import com.example.server.service.storage.LocalStorageBackend;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Serves files of the local storage backend through signed URLs, with single-range support.
+ * On Tomcat the body is handed to the connector's sendfile; otherwise it is copied with
+ * {@link FileChannel#transferTo}.
+ */
+@RestController
+@RequestMapping("/api/files")
+@ConditionalOnProperty(name = "storage.backend", havingValue = "local")
+public class LocalFileController {
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private final LocalStorageBackend storage;
+
+    public LocalFileController(LocalStorageBackend storage) {
+        this.storage = storage;
+    }
+
+    @GetMapping("/{*key}")
+    public void download(@PathVariable String key,
+                         @RequestParam(required = false) String prefix,
+                         @RequestParam long expires,
+                         @RequestParam String signature,
+                         HttpServletRequest request,
+                         HttpServletResponse response) throws IOException {
+        String objectKey = key.startsWith("/") ? key.substring(1) : key;
+        if (!storage.verify(objectKey, prefix != null ? prefix : objectKey, expires, signature)) {
+            response.sendError(HttpStatus.FORBIDDEN.value());
+            return;
+        }
+        Path path;
+        try {
+            path = storage.resolve(objectKey);
+        } catch (IllegalArgumentException e) {
+            response.sendError(HttpStatus.BAD_REQUEST.value());
+            return;
+        }
+        if (!Files.isRegularFile(path)) {
+            response.sendError(HttpStatus.NOT_FOUND.value());
+            return;
+        }
+
+        long size = Files.size(path);
+        long start = 0;
+        long end = size - 1;
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader != null) {
+            try {
+                List<HttpRange> ranges = HttpRange.parseRanges(rangeHeader);
+                if (ranges.size() != 1) {
+                    throw new IllegalArgumentException("Multiple ranges are not supported");
+                }
+                start = ranges.get(0).getRangeStart(size);
+                end = ranges.get(0).getRangeEnd(size);
+            } catch (IllegalArgumentException e) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+                response.sendError(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                return;
+            }
+            response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + size);
+        }
+
+        String contentType = Files.probeContentType(path);
+        response.setContentType(contentType != null ? contentType : "application/octet-stream");
+        response.setContentLengthLong(end - start + 1);
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            // Tomcat writes the file straight from the page cache after the handler returns; end is exclusive
+            request.setAttribute(SENDFILE_FILENAME, path.toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            while (position <= end) {
+                position += channel.transferTo(position, end + 1 - position, out);
+            }
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.server.controller;
+
+import com.example.server.service.media.MediaUrlSigner;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.net.URI;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Stable media URLs: stored content references {@code /api/media/<key>}, and each request
+ * is redirected to a short-lived signed URL on the storage backend.
+ */
+@RestController
+@RequestMapping("/api/media")
+public class MediaController {
+
+    // Browsers may reuse a redirect for this long, always well inside the signature's validity
+    private static final Duration MAX_REDIRECT_AGE = Duration.ofMinutes(5);
+
+    private final MediaUrlSigner mediaUrlSigner;
+
+    public MediaController(MediaUrlSigner mediaUrlSigner) {
+        this.mediaUrlSigner = mediaUrlSigner;
+    }
+
+    @GetMapping("/{*key}")
+    public ResponseEntity<?> redirect(@PathVariable String key) {
+        String objectKey = key.startsWith("/") ? key.substring(1) : key;
+        if (objectKey.isEmpty() || objectKey.contains("..")) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Invalid media key."));
+        }
+        try {
+            MediaUrlSigner.SignedUrl signed = mediaUrlSigner.sign(objectKey).orElse(null);
+            if (signed == null) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "Media not found."));
+            }
+            Duration remaining = Duration.between(Instant.now(), signed.expiresAt());
+            Duration maxAge = remaining.compareTo(MAX_REDIRECT_AGE) < 0 ? Duration.ZERO : MAX_REDIRECT_AGE;
+            return ResponseEntity.status(HttpStatus.FOUND)
+                    .location(URI.create(signed.url()))
+                    .cacheControl(CacheControl.maxAge(maxAge).cachePrivate())
+                    .build();
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_GATEWAY).body(Map.of("error", e.getMessage()));
+        }
+    }
+}
@@ -1,8 +1,11 @@
 package com.example.server.controller;
 
+import com.example.server.DTO.notification.NotificationDTO;
+import com.example.server.DTO.notification.UnreadCountDTO;
 import com.example.server.model.notification.Notification;
 import com.example.server.service.notification.NotificationService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -19,12 +22,52 @@ public class NotificationController {
     }
 
     @GetMapping
-    public List<Notification> getAll(@RequestParam Long userId) {
+    public List<NotificationDTO> getAll(@RequestParam Long userId) {
         return service.getUserNotifications(userId);
     }
 
+    @GetMapping(params = "limit")
+    public ResponseEntity<?> getInbox(@RequestParam Long userId,
+                                      @RequestParam(value = "after", required = false) String after,
+                                      @RequestParam("limit") int limit) {
+        try {
+            return ResponseEntity.ok(service.getInbox(userId, after, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // Served from an in-memory counter; changes are pushed on /user/queue/notifications/count
+    @GetMapping("/unread-count")
+    public UnreadCountDTO getUnreadCount(@RequestParam Long userId) {
+        return new UnreadCountDTO(service.getUnreadCount(userId), 0);
+    }
+
     @PostMapping("/{id}/read")
     public void markRead(@PathVariable Long id) {
         service.markAsRead(id);
     }
+
+    // One UPDATE for everything unread, or everything at and before the given inbox cursor
+    @PostMapping("/read-all")
+    public ResponseEntity<?> markAllRead(@RequestParam Long userId,
+                                         @RequestParam(value = "upTo", required = false) String upTo) {
+        try {
+            int updated = service.markAllAsRead(userId, upTo);
+            return ResponseEntity.ok(new UnreadCountDTO(service.getUnreadCount(userId), -updated));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // Batched form of /{id}/read; ids that are not the user's or already read are skipped
+    @PostMapping("/read")
+    public ResponseEntity<?> markRead(@RequestParam Long userId, @RequestBody List<Long> ids) {
+        try {
+            int updated = service.markAsRead(userId, ids);
+            return ResponseEntity.ok(new UnreadCountDTO(service.getUnreadCount(userId), -updated));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
 }
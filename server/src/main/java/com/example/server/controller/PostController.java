@@ -4,11 +4,15 @@ import com.example.server.DTO.post.CommentRequestDTO;
 import com.example.server.DTO.post.CommentResponseDTO;
 import com.example.server.DTO.post.PostCreateDTO;
 import com.example.server.DTO.post.PostDTO;
+import com.example.server.DTO.post.PostPageDTO;
 import com.example.server.model.post.Comment;
 import com.example.server.service.post.PostService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -16,9 +20,15 @@ import java.util.List;
 @RequestMapping("/api/posts")
 public class PostController {
 
+    private static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    private static final int STREAM_CHUNK_SIZE = 100;
+
     @Autowired
     private PostService postService;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
     @PostMapping
     public ResponseEntity<PostDTO> createPost(
             @RequestBody PostCreateDTO postCreateDTO,
@@ -40,6 +50,37 @@ public class PostController {
         return ResponseEntity.ok(posts);
     }
 
+    @GetMapping(params = "limit")
+    public ResponseEntity<?> getPublishedPostsPage(@RequestParam(value = "after", required = false) String after,
+                                                   @RequestParam("limit") int limit,
+                                                   @RequestParam(value = "userId", required = false) Long userId) {
+        try {
+            PostPageDTO page = postService.getPublishedPostsPage(after, limit, userId);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // Writes published posts as newline-delimited JSON, reading one keyset page at a time
+    @GetMapping("/stream")
+    public ResponseEntity<StreamingResponseBody> streamPublishedPosts(
+            @RequestParam(value = "userId", required = false) Long userId) {
+        StreamingResponseBody body = out -> {
+            String after = null;
+            do {
+                PostPageDTO page = postService.getPublishedPostsPage(after, STREAM_CHUNK_SIZE, userId);
+                for (PostDTO post : page.getItems()) {
+                    out.write(objectMapper.writeValueAsBytes(post));
+                    out.write('\n');
+                }
+                out.flush();
+                after = page.getNextCursor();
+            } while (after != null);
+        };
+        return ResponseEntity.ok().contentType(APPLICATION_NDJSON).body(body);
+    }
+
     @GetMapping("/draft")
     public ResponseEntity<List<PostDTO>> getAllDraftPosts(@RequestParam(value = "userId", required = false) Long userId) {
         List<PostDTO> posts = postService.getAllDraftPosts(userId);
@@ -79,8 +120,17 @@ public class PostController {
     }
 
     @GetMapping("/{postId}/comments")
-    public ResponseEntity<List<CommentResponseDTO>> getComments(@PathVariable Long postId) {
-        return ResponseEntity.ok(postService.getComments(postId));
+    public ResponseEntity<List<CommentResponseDTO>> getComments(
+            @PathVariable Long postId,
+            @RequestParam(value = "page", required = false, defaultValue = "0") int page,
+            @RequestParam(value = "size", required = false) Integer size,
+            @RequestParam(value = "maxDepth", required = false) Integer maxDepth) {
+        if (size == null && maxDepth == null && page == 0) {
+            return ResponseEntity.ok(postService.getComments(postId));
+        }
+        return ResponseEntity.ok(postService.getComments(postId, page,
+                size != null ? size : Integer.MAX_VALUE,
+                maxDepth != null ? maxDepth : Integer.MAX_VALUE));
     }
 
     @GetMapping("/{postId}/likes/count")
@@ -0,0 +1,28 @@
+package com.example.server.controller;
+
+import com.example.server.DTO.search.SearchPageDTO;
+import com.example.server.service.search.SearchService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/search")
+public class SearchController {
+
+    @Autowired
+    private SearchService searchService;
+
+    @GetMapping
+    public ResponseEntity<?> search(@RequestParam("q") String query,
+                                    @RequestParam(value = "type", required = false) String type,
+                                    @RequestParam(value = "page", required = false, defaultValue = "0") int page,
+                                    @RequestParam(value = "size", required = false, defaultValue = "20") int size) {
+        try {
+            SearchPageDTO results = searchService.search(query, type, page, size);
+            return ResponseEntity.ok(results);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+}
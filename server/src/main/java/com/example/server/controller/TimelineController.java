@@ -0,0 +1,27 @@
+package com.example.server.controller;
+
+import com.example.server.DTO.post.PostPageDTO;
+import com.example.server.service.timeline.TimelineService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/timeline")
+public class TimelineController {
+
+    @Autowired
+    private TimelineService timelineService;
+
+    @GetMapping
+    public ResponseEntity<?> getHomeTimeline(@RequestParam Long userId,
+                                             @RequestParam(value = "after", required = false) String after,
+                                             @RequestParam(value = "limit", required = false, defaultValue = "20") int limit) {
+        try {
+            PostPageDTO page = timelineService.getHomeTimeline(userId, after, limit);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.server.model.auth;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * An issued refresh token, identified by its {@code jti}. Every login starts a family and each
+ * rotation issues the next token in it; presenting a token that was already used revokes the
+ * whole family, since one of the two holders must have stolen it.
+ */
+@Entity
+@Table(name = "refresh_tokens", indexes = {
+        @Index(name = "idx_refresh_tokens_family", columnList = "family_id"),
+        @Index(name = "idx_refresh_tokens_user", columnList = "user_email"),
+        @Index(name = "idx_refresh_tokens_revoked", columnList = "revoked_at"),
+        @Index(name = "idx_refresh_tokens_expires", columnList = "expires_at")
+})
+@Data
+@NoArgsConstructor
+public class RefreshToken {
+
+    @Id
+    private UUID id;
+
+    @Column(name = "family_id", nullable = false)
+    private UUID familyId;
+
+    @Column(name = "user_email", nullable = false)
+    private String userEmail;
+
+    private String provider;
+
+    @Column(nullable = false)
+    private LocalDateTime issuedAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    // Set when the token is exchanged for its successor
+    private LocalDateTime usedAt;
+
+    // Set on every token of a family when the family is revoked
+    @Column(name = "revoked_at")
+    private LocalDateTime revokedAt;
+}
@@ -0,0 +1,48 @@
+package com.example.server.model.media;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Resized copies of an uploaded image, looked up by the URL the upload returned
+ * (which is what IMAGE content blocks store).
+ */
+@Entity
+@Table(name = "image_derivatives", indexes = {
+        @Index(name = "idx_image_derivatives_source_url", columnList = "source_url")
+})
+@Data
+@NoArgsConstructor
+public class ImageDerivative {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, unique = true)
+    private String sourceKey;
+
+    @Column(name = "source_url", nullable = false, length = 2048)
+    private String sourceUrl;
+
+    // Tiny blurred preview as a data: URI, shown while the real image loads
+    @Column(columnDefinition = "TEXT")
+    private String placeholder;
+
+    @ElementCollection
+    @CollectionTable(name = "image_variants", joinColumns = @JoinColumn(name = "derivative_id"), indexes = {
+            @Index(name = "idx_image_variants_storage_key", columnList = "storage_key")
+    })
+    @OrderBy("width")
+    private List<ImageVariant> variants = new ArrayList<>();
+
+    @CreationTimestamp
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+}
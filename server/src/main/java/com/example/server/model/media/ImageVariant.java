@@ -0,0 +1,23 @@
+package com.example.server.model.media;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Embeddable
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImageVariant {
+
+    @Column(nullable = false)
+    private int width;
+
+    @Column(nullable = false)
+    private String storageKey;
+
+    @Column(nullable = false, length = 2048)
+    private String url;
+}
@@ -0,0 +1,61 @@
+package com.example.server.model.media;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * An uploaded file, stored once per distinct content. {@code refCount} counts the profile
+ * pictures, cover photos and content blocks that point at {@code url}.
+ */
+@Entity
+@Table(name = "media_objects", indexes = {
+        @Index(name = "idx_media_objects_url", columnList = "url"),
+        @Index(name = "idx_media_objects_unreferenced", columnList = "ref_count, last_claimed_at")
+})
+@Data
+@NoArgsConstructor
+public class MediaObject {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Hex SHA-256 of the content
+    @Column(nullable = false, unique = true, length = 64)
+    private String contentHash;
+
+    @Column(nullable = false, unique = true)
+    private String storageKey;
+
+    @Column(nullable = false)
+    private long size;
+
+    private String contentType;
+
+    // Stable /api/media URL handed out for this content
+    @Column(nullable = false, length = 2048)
+    private String url;
+
+    // Only changed through MediaObjectRepository's atomic updates
+    @ColumnDefault("0")
+    @Column(name = "ref_count", nullable = false, updatable = false)
+    private long refCount = 0;
+
+    // Last time an upload produced this object; unreferenced objects are kept for a grace period after it
+    @Column(name = "last_claimed_at", nullable = false)
+    private LocalDateTime lastClaimedAt;
+
+    // Set when the sweeper starts deleting this object; the row stays as a tombstone until storage
+    // is clean, so an upload of the same content can't be stored under a key being deleted
+    @Column(name = "deleting_at")
+    private LocalDateTime deletingAt;
+
+    @CreationTimestamp
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+}
@@ -1,26 +1,48 @@
 package com.example.server.model.notification;
 
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 
 @Getter
 @Setter
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_notification_aggregate", columnList = "recipient_id, type, target_id, is_read"),
+        @Index(name = "idx_notification_inbox", columnList = "recipient_id, created_at, id")
+})
 public class Notification {
     @Id
     @GeneratedValue
     private Long id;
 
     private Long recipientId;
-    private Long actorId;
+    private Long actorId; // most recent actor
     private String type; // e.g. "FOLLOW", "COMMENT", "MENTION"
+    private Long targetId; // what the events were about, e.g. the liked post; null for e.g. FOLLOW
     private String message;
     private boolean isRead = false;
 
+    // Events merged into this row, and the most recent distinct actors first
+    @ColumnDefault("1")
+    @Column(nullable = false)
+    private int actorCount = 1;
+
+    @JdbcTypeCode(SqlTypes.JSON)
+    private List<Long> sampleActorIds = new ArrayList<>();
+
     private LocalDateTime createdAt = LocalDateTime.now();
-}
\ No newline at end of file
+    private LocalDateTime updatedAt = LocalDateTime.now();
+}
@@ -17,7 +17,10 @@ import java.util.List;
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
-@Table(name = "comments")
+@Table(name = "comments", indexes = {
+        @Index(name = "idx_comments_post_created", columnList = "post_id, created_at, id"),
+        @Index(name = "idx_comments_parent", columnList = "parent_id")
+})
 public class Comment {
 
     @Id
@@ -2,8 +2,12 @@ package com.example.server.model.post;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "content_blocks")
 @Getter
 @Setter
 @NoArgsConstructor
@@ -11,8 +15,10 @@ import lombok.*;
 @Table(name = "content_blocks")
 @Data
 public class ContentBlock {
+    // Pooled sequence ids let Hibernate batch block inserts, which IDENTITY columns prevent
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "content_blocks_seq")
+    @SequenceGenerator(name = "content_blocks_seq", sequenceName = "content_blocks_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -15,7 +15,10 @@ import java.time.LocalDateTime;
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
-@Table(name = "likes")
+// One like per user and post; the buffered flush and concurrent toggles rely on it to stay idempotent
+@Table(name = "likes", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_likes_post_user", columnNames = {"post_id", "user_id"})
+})
 public class Like {
 
     @Id
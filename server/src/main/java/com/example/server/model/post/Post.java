@@ -3,6 +3,9 @@ package com.example.server.model.post;
 import com.example.server.model.user.User;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
@@ -11,11 +14,16 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "posts")
 @Getter
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
-@Table(name = "posts")
+@Table(name = "posts", indexes = {
+        @Index(name = "idx_posts_published_created_id", columnList = "is_published, created_at, id"),
+        @Index(name = "idx_posts_counters_updated_at", columnList = "counters_updated_at")
+})
 @Data
 public class Post {
     @Id
@@ -29,6 +37,7 @@ public class Post {
     @Column(nullable = false)
     private String title;
 
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "post_content_blocks")
     @OneToMany(cascade = CascadeType.ALL, orphanRemoval = true, mappedBy = "post")
     private List<ContentBlock> contentBlocks = new ArrayList<>(); // Removed @OrderColumn
 
@@ -43,6 +52,19 @@ public class Post {
     @Column(nullable = false)
     private boolean isPublished = false;
 
+    // Denormalized counters, only changed through PostRepository's atomic updates
+    @ColumnDefault("0")
+    @Column(nullable = false, updatable = false)
+    private long likeCount = 0;
+
+    @ColumnDefault("0")
+    @Column(nullable = false, updatable = false)
+    private long commentCount = 0;
+
+    // When a counter was last adjusted; lets the reconciler check only posts that changed
+    @Column(insertable = false, updatable = false)
+    private LocalDateTime countersUpdatedAt;
+
 //    @PrePersist
 //    @PreUpdate
 //    public void validateMedia() {
@@ -0,0 +1,48 @@
+package com.example.server.model.timeline;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A change that resident home timelines must reflect, written in the same transaction as the
+ * change itself. Every instance polls recent events, so a post published or a follow changed
+ * on one node reaches the timelines held by the others.
+ */
+@Entity
+@Table(name = "timeline_events", indexes = {
+        @Index(name = "idx_timeline_events_created_at", columnList = "created_at")
+})
+@Data
+@NoArgsConstructor
+public class TimelineEvent {
+
+    public enum Type {
+        // userId is the author; the post is pushed to their followers' timelines
+        POST_PUBLISHED,
+        // userId is the follower, whose timeline is dropped and rebuilt on next read
+        FOLLOWS_CHANGED
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 32)
+    private Type type;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "post_id")
+    private Long postId;
+
+    @Column(name = "post_created_at")
+    private LocalDateTime postCreatedAt;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
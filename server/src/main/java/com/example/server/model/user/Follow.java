@@ -5,7 +5,10 @@ import lombok.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "follows")
+@Table(name = "follows", indexes = {
+        @Index(name = "idx_follows_following", columnList = "following_id"),
+        @Index(name = "idx_follows_follower", columnList = "follower_id")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -0,0 +1,40 @@
+package com.example.server.repository.auth;
+
+import com.example.server.model.auth.RefreshToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, UUID> {
+
+    // Conditional so exactly one caller can exchange a token; zero rows means reuse, revocation or expiry
+    @Transactional
+    @Modifying
+    @Query("UPDATE RefreshToken r SET r.usedAt = :now WHERE r.id = :id AND r.familyId = :familyId " +
+            "AND r.usedAt IS NULL AND r.revokedAt IS NULL AND r.expiresAt > :now")
+    int markUsed(@Param("id") UUID id, @Param("familyId") UUID familyId, @Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE RefreshToken r SET r.revokedAt = :now WHERE r.familyId = :familyId AND r.revokedAt IS NULL")
+    int revokeFamily(@Param("familyId") UUID familyId, @Param("now") LocalDateTime now);
+
+    @Query("SELECT DISTINCT r.familyId FROM RefreshToken r WHERE r.userEmail = :email " +
+            "AND r.revokedAt IS NULL AND r.expiresAt > :now")
+    List<UUID> findActiveFamilyIds(@Param("email") String email, @Param("now") LocalDateTime now);
+
+    // Families whose tokens could still be presented; older ones fail on expiry alone
+    @Query("SELECT DISTINCT r.familyId FROM RefreshToken r WHERE r.revokedAt > :since AND r.expiresAt > :now")
+    List<UUID> findRevokedFamilyIds(@Param("since") LocalDateTime since, @Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM RefreshToken r WHERE r.expiresAt < :before")
+    int deleteExpired(@Param("before") LocalDateTime before);
+}
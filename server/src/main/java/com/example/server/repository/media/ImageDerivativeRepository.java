@@ -0,0 +1,23 @@
+package com.example.server.repository.media;
+
+import com.example.server.model.media.ImageDerivative;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface ImageDerivativeRepository extends JpaRepository<ImageDerivative, Long> {
+
+    @Query("SELECT DISTINCT d FROM ImageDerivative d LEFT JOIN FETCH d.variants WHERE d.sourceUrl IN :urls")
+    List<ImageDerivative> findBySourceUrlIn(@Param("urls") Collection<String> urls);
+
+    @EntityGraph(attributePaths = "variants")
+    Optional<ImageDerivative> findBySourceKey(String sourceKey);
+
+    @Query("SELECT COUNT(d) > 0 FROM ImageDerivative d JOIN d.variants v WHERE v.storageKey = :key")
+    boolean existsByVariantKey(@Param("key") String key);
+}
@@ -0,0 +1,64 @@
+package com.example.server.repository.media;
+
+import com.example.server.model.media.MediaObject;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public interface MediaObjectRepository extends JpaRepository<MediaObject, Long> {
+
+    Optional<MediaObject> findByContentHash(String contentHash);
+
+    boolean existsByStorageKeyAndDeletingAtIsNull(String storageKey);
+
+    @Transactional
+    @Modifying
+    // Zero rows means the object is being swept or is already gone
+    @Query("UPDATE MediaObject m SET m.lastClaimedAt = :now WHERE m.id = :id AND m.deletingAt IS NULL")
+    int touch(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE MediaObject m SET m.refCount = m.refCount + :delta WHERE m.url = :url")
+    int adjustRefCount(@Param("url") String url, @Param("delta") long delta);
+
+    // Also lifts a sweep's tombstone: an object referenced again before its files are deleted is kept
+    @Transactional
+    @Modifying
+    @Query("UPDATE MediaObject m SET m.refCount = m.refCount + :count, m.deletingAt = NULL WHERE m.url = :url")
+    int addReferences(@Param("url") String url, @Param("count") long count);
+
+    @Query("SELECT m FROM MediaObject m WHERE m.refCount <= 0 AND m.lastClaimedAt < :before " +
+            "AND m.deletingAt IS NULL ORDER BY m.lastClaimedAt")
+    List<MediaObject> findUnreferenced(@Param("before") LocalDateTime before, Limit limit);
+
+    // Tombstones of sweeps whose storage deletes did not finish
+    @Query("SELECT m FROM MediaObject m WHERE m.deletingAt IS NOT NULL ORDER BY m.deletingAt")
+    List<MediaObject> findDeleting(Limit limit);
+
+    // Held while the sweeper deletes the files; empty once the object has been referenced again
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT m FROM MediaObject m WHERE m.id = :id AND m.deletingAt IS NOT NULL AND m.refCount <= 0")
+    Optional<MediaObject> lockTombstone(@Param("id") Long id);
+
+    // Conditional so an object that was referenced or re-uploaded meanwhile is kept
+    @Transactional
+    @Modifying
+    @Query("UPDATE MediaObject m SET m.deletingAt = :now WHERE m.id = :id AND m.refCount <= 0 " +
+            "AND m.lastClaimedAt < :before AND m.deletingAt IS NULL")
+    int markDeleting(@Param("id") Long id, @Param("before") LocalDateTime before, @Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM MediaObject m WHERE m.id = :id AND m.deletingAt IS NOT NULL AND m.refCount <= 0")
+    int deleteTombstone(@Param("id") Long id);
+}
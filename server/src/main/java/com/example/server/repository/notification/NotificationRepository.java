@@ -1,12 +1,62 @@
 package com.example.server.repository.notification;
 
 import com.example.server.model.notification.Notification;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface NotificationRepository extends JpaRepository<Notification, Long> {
     List<Notification> findByRecipientIdOrderByCreatedAtDesc(Long userId);
+
+    // Keyset pagination over (recipient_id, created_at, id), newest first
+    @Query("SELECT n FROM Notification n WHERE n.recipientId = :recipientId ORDER BY n.createdAt DESC, n.id DESC")
+    List<Notification> findInbox(@Param("recipientId") Long recipientId, Limit limit);
+
+    @Query("SELECT n FROM Notification n WHERE n.recipientId = :recipientId " +
+            "AND (n.createdAt < :createdAt OR (n.createdAt = :createdAt AND n.id < :id)) " +
+            "ORDER BY n.createdAt DESC, n.id DESC")
+    List<Notification> findInboxAfter(@Param("recipientId") Long recipientId,
+                                      @Param("createdAt") LocalDateTime createdAt,
+                                      @Param("id") Long id,
+                                      Limit limit);
     long countByRecipientIdAndIsReadFalse(Long userId);
+
+    // Conditional so a notification leaves the unread count exactly once; zero rows means it already had
+    @Modifying
+    @Query("UPDATE Notification n SET n.isRead = true WHERE n.id = :id AND n.isRead = false")
+    int markRead(@Param("id") Long id);
+
+    // Set-based read-state updates; each returns how many notifications left the unread count
+    @Modifying
+    @Query("UPDATE Notification n SET n.isRead = true WHERE n.recipientId = :recipientId AND n.isRead = false")
+    int markAllRead(@Param("recipientId") Long recipientId);
+
+    @Modifying
+    @Query("UPDATE Notification n SET n.isRead = true WHERE n.recipientId = :recipientId AND n.isRead = false " +
+            "AND (n.createdAt < :createdAt OR (n.createdAt = :createdAt AND n.id <= :id))")
+    int markReadUpTo(@Param("recipientId") Long recipientId,
+                     @Param("createdAt") LocalDateTime createdAt,
+                     @Param("id") Long id);
+
+    @Modifying
+    @Query("UPDATE Notification n SET n.isRead = true WHERE n.recipientId = :recipientId AND n.isRead = false " +
+            "AND n.id IN :ids")
+    int markReadByIds(@Param("recipientId") Long recipientId, @Param("ids") Collection<Long> ids);
+
     List<Notification> findByRecipientId(Long userId);
+
+    // The unread aggregate new events for the same key are merged into. Locked, so a concurrent
+    // markRead waits for the merge to commit and a row read meanwhile no longer matches
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<Notification> findFirstByRecipientIdAndTypeAndTargetIdAndIsReadFalseAndUpdatedAtAfterOrderByUpdatedAtDesc(
+            Long recipientId, String type, Long targetId, LocalDateTime after);
 }
\ No newline at end of file
@@ -1,11 +1,39 @@
 package com.example.server.repository.post;
 
 import com.example.server.model.post.Comment;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface CommentRepository extends JpaRepository<Comment, Long> {
     List<Comment> findByPostId(Long postId);
     Number countByPostId(Long id);
+
+    // Whole thread for a post in one round trip, oldest first
+    @Query("SELECT new com.example.server.repository.post.CommentRow(c.id, p.id, c.content, u.username, c.createdAt) " +
+            "FROM Comment c JOIN c.user u LEFT JOIN c.parent p " +
+            "WHERE c.post.id = :postId ORDER BY c.createdAt, c.id")
+    List<CommentRow> findThreadRows(@Param("postId") Long postId);
+
+    // One page of top-level comments, oldest first
+    @Query("SELECT new com.example.server.repository.post.CommentRow(c.id, p.id, c.content, u.username, c.createdAt) " +
+            "FROM Comment c JOIN c.user u LEFT JOIN c.parent p " +
+            "WHERE c.post.id = :postId AND c.parent IS NULL ORDER BY c.createdAt, c.id")
+    List<CommentRow> findRootRows(@Param("postId") Long postId, Pageable pageable);
+
+    // Replies under the given comments, walked down at most maxDepth levels; rows are
+    // (id, parent_id, content, username, created_at), oldest first
+    @Query(value = "WITH RECURSIVE thread AS (" +
+            "SELECT c.id, c.parent_id, c.content, c.user_id, c.created_at, 1 AS depth " +
+            "FROM comments c WHERE c.parent_id IN (:parentIds) " +
+            "UNION ALL " +
+            "SELECT c.id, c.parent_id, c.content, c.user_id, c.created_at, t.depth + 1 " +
+            "FROM comments c JOIN thread t ON c.parent_id = t.id WHERE t.depth < :maxDepth) " +
+            "SELECT t.id, t.parent_id, t.content, u.username, t.created_at " +
+            "FROM thread t JOIN users u ON u.id = t.user_id ORDER BY t.created_at, t.id", nativeQuery = true)
+    List<Object[]> findReplyRows(@Param("parentIds") Collection<Long> parentIds, @Param("maxDepth") int maxDepth);
 }
@@ -0,0 +1,19 @@
+package com.example.server.repository.post;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Flat comment row with its author resolved, used to build comment trees in memory.
+ */
+@Getter
+@AllArgsConstructor
+public class CommentRow {
+    private Long id;
+    private Long parentId;
+    private String content;
+    private String author;
+    private LocalDateTime createdAt;
+}
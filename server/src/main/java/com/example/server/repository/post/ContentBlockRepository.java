@@ -2,6 +2,14 @@ package com.example.server.repository.post;
 
 import com.example.server.model.post.ContentBlock;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
 
 public interface ContentBlockRepository extends JpaRepository<ContentBlock, Long> {
+
+    @Query("SELECT b FROM ContentBlock b WHERE b.post.id IN :postIds ORDER BY b.position")
+    List<ContentBlock> findByPostIdIn(@Param("postIds") Collection<Long> postIds);
 }
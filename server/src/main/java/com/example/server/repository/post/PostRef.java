@@ -0,0 +1,16 @@
+package com.example.server.repository.post;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Lightweight reference to a post: just enough to order and page a feed before hydrating it.
+ */
+@Getter
+@AllArgsConstructor
+public class PostRef {
+    private Long id;
+    private LocalDateTime createdAt;
+}
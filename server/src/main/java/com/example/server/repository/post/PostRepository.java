@@ -1,14 +1,57 @@
 package com.example.server.repository.post;
 
 import com.example.server.model.post.Post;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 public interface PostRepository extends JpaRepository<Post, Long> {
+    @EntityGraph(attributePaths = "user")
     List<Post> findByIsPublishedTrue();
+
+    @EntityGraph(attributePaths = "user")
     List<Post> findByIsPublishedFalse();
+
+    @EntityGraph(attributePaths = "user")
     List<Post> findByUserId(Long userId);
+
     Optional<Object> findByIsPublishedFalseAndUserId(Long userId);
-}
\ No newline at end of file
+
+    // Keyset pagination over (is_published, created_at, id), newest first
+    @EntityGraph(attributePaths = "user")
+    @Query("SELECT p FROM Post p WHERE p.isPublished = true ORDER BY p.createdAt DESC, p.id DESC")
+    List<Post> findPublishedFeed(Limit limit);
+
+    @EntityGraph(attributePaths = "user")
+    @Query("SELECT p FROM Post p WHERE p.isPublished = true " +
+            "AND (p.createdAt < :createdAt OR (p.createdAt = :createdAt AND p.id < :id)) " +
+            "ORDER BY p.createdAt DESC, p.id DESC")
+    List<Post> findPublishedFeedAfter(@Param("createdAt") LocalDateTime createdAt,
+                                      @Param("id") Long id,
+                                      Limit limit);
+
+    @EntityGraph(attributePaths = "user")
+    List<Post> findByIdIn(Collection<Long> ids);
+
+    // Home timeline: newest published posts of everyone the user follows
+    @Query("SELECT new com.example.server.repository.post.PostRef(p.id, p.createdAt) FROM Post p " +
+            "WHERE p.isPublished = true AND p.user.id IN " +
+            "(SELECT f.following.id FROM Follow f WHERE f.follower.id = :userId) " +
+            "ORDER BY p.createdAt DESC, p.id DESC")
+    List<PostRef> findFolloweeFeedRefs(@Param("userId") Long userId, Limit limit);
+
+    @Query("SELECT new com.example.server.repository.post.PostRef(p.id, p.createdAt) FROM Post p " +
+            "WHERE p.isPublished = true AND p.user.id IN :authorIds " +
+            "ORDER BY p.createdAt DESC, p.id DESC")
+    List<PostRef> findRecentRefsByAuthors(@Param("authorIds") Collection<Long> authorIds, Limit limit);
+
+    @Query("SELECT p.likeCount FROM Post p WHERE p.id = :postId")
+    Optional<Long> findLikeCountById(@Param("postId") Long postId);
+}
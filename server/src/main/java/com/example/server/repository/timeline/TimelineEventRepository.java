@@ -0,0 +1,22 @@
+package com.example.server.repository.timeline;
+
+import com.example.server.model.timeline.TimelineEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface TimelineEventRepository extends JpaRepository<TimelineEvent, Long> {
+
+    @Query("SELECT e FROM TimelineEvent e WHERE e.createdAt > :since ORDER BY e.id")
+    List<TimelineEvent> findSince(@Param("since") LocalDateTime since);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM TimelineEvent e WHERE e.createdAt < :before")
+    int deleteOlderThan(@Param("before") LocalDateTime before);
+}
@@ -3,6 +3,9 @@ package com.example.server.repository.user;
 import com.example.server.model.user.Follow;
 import com.example.server.model.user.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
 import java.util.List;
 
 public interface FollowRepository extends JpaRepository<Follow, Long> {
@@ -10,4 +13,14 @@ public interface FollowRepository extends JpaRepository<Follow, Long> {
     List<Follow> findByFollowing(User following);
     void deleteByFollowerAndFollowing(User follower, User following);
     boolean existsByFollowerAndFollowing(User follower, User following);
+
+    @Query("SELECT f.follower.id FROM Follow f WHERE f.following.id = :userId")
+    List<Long> findFollowerIds(@Param("userId") Long userId);
+
+    long countByFollowingId(Long userId);
+
+    // Followees whose audience is too large to fan out to on write
+    @Query("SELECT f.following.id FROM Follow f WHERE f.follower.id = :userId " +
+            "AND (SELECT COUNT(f2) FROM Follow f2 WHERE f2.following = f.following) >= :threshold")
+    List<Long> findHeavyFolloweeIds(@Param("userId") Long userId, @Param("threshold") long threshold);
 }
\ No newline at end of file
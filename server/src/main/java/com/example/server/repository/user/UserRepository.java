@@ -1,14 +1,31 @@
 package com.example.server.repository.user;
 
+import com.example.server.DTO.user.FollowDTO;
 import com.example.server.model.user.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Integer> {
+    // Cached queries keep only ids; the User rows themselves come from the second-level cache
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<User> findByEmail(String email);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<User> findById(Long id);
+
     Optional<User> findByEmailOrUsername(String email, String username);
+
+    // Just what is needed to show a user next to something they did, for many users in one query
+    @Query("SELECT new com.example.server.DTO.user.FollowDTO(u.id, u.fullName, u.profilePic) FROM User u WHERE u.id IN :ids")
+    List<FollowDTO> findSummariesByIdIn(@Param("ids") Collection<Long> ids);
 }
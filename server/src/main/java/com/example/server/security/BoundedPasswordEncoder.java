@@ -0,0 +1,102 @@
+package com.example.server.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * BCrypt on a small dedicated pool instead of the request threads. The pool is sized to the
+ * CPU and its queue is short: when both are full, or a queued hash waits longer than
+ * {@code maxWait}, the caller gets a {@link PasswordHashingBusyException} straight away, so a
+ * login storm cannot take every request thread with it.
+ * <p>
+ * Hashes at any cost other than the configured one report {@link #upgradeEncoding}, which
+ * lets the authentication provider rehash them after a successful login.
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder {
+
+    private static final Pattern BCRYPT_COST = Pattern.compile("^\\$2[abxy]?\\$(\\d\\d)\\$");
+
+    private final BCryptPasswordEncoder delegate;
+    private final int cost;
+    private final ThreadPoolTaskExecutor executor;
+    private final long maxWaitMillis;
+    private final Timer queueWait;
+    private final Timer encodeTime;
+    private final Timer matchTime;
+    private final Counter rejected;
+
+    public BoundedPasswordEncoder(int cost, ThreadPoolTaskExecutor executor, long maxWaitMillis,
+                                  MeterRegistry meterRegistry) {
+        this.delegate = new BCryptPasswordEncoder(cost);
+        this.cost = cost;
+        this.executor = executor;
+        this.maxWaitMillis = maxWaitMillis;
+        this.queueWait = Timer.builder("auth.password.queue.wait").register(meterRegistry);
+        this.encodeTime = Timer.builder("auth.password.hash").tag("operation", "encode").register(meterRegistry);
+        this.matchTime = Timer.builder("auth.password.hash").tag("operation", "match").register(meterRegistry);
+        this.rejected = meterRegistry.counter("auth.password.rejected");
+        meterRegistry.gauge("auth.password.queue.depth", executor, ThreadPoolTaskExecutor::getQueueSize);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return run(encodeTime, () -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return run(matchTime, () -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        if (encodedPassword == null) {
+            return false;
+        }
+        Matcher matcher = BCRYPT_COST.matcher(encodedPassword);
+        return matcher.find() && Integer.parseInt(matcher.group(1)) != cost;
+    }
+
+    private <T> T run(Timer timer, Callable<T> work) {
+        long queuedAt = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                queueWait.record(System.nanoTime() - queuedAt, TimeUnit.NANOSECONDS);
+                return timer.recordCallable(work);
+            });
+        } catch (TaskRejectedException e) {
+            rejected.increment();
+            throw new PasswordHashingBusyException("Password hashing is saturated", e);
+        }
+        try {
+            return future.get(maxWaitMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            rejected.increment();
+            throw new PasswordHashingBusyException("Password hashing timed out", e);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new PasswordHashingBusyException("Interrupted while hashing", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.server.security;
+
+import com.example.server.service.auth.RevokedTokenFamilies;
+import com.example.server.util.JwtTokenProvider;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Turns a bearer token into a {@link JwtPrincipal} with a single parse and signature check.
+ * Verified tokens can be kept in a bounded cache keyed by the token's SHA-256 digest, so a
+ * client repeating the same token skips the HMAC and JSON work; entries leave the cache when
+ * their token expires. Tokens that fail verification are never cached, and a token whose
+ * session has been revoked is rejected even when it is.
+ */
+@Component
+public class JwtAuthenticator {
+
+    private final JwtTokenProvider jwtTokenProvider;
+    private final RevokedTokenFamilies revokedTokenFamilies;
+    private final Cache<String, JwtPrincipal> verified;
+    private final Timer valid;
+    private final Timer expired;
+    private final Timer invalid;
+
+    public JwtAuthenticator(JwtTokenProvider jwtTokenProvider,
+                            RevokedTokenFamilies revokedTokenFamilies,
+                            @Value("${jwt.claims-cache.enabled:true}") boolean cacheEnabled,
+                            @Value("${jwt.claims-cache.max-size:10000}") long cacheMaxSize,
+                            MeterRegistry meterRegistry) {
+        this.jwtTokenProvider = jwtTokenProvider;
+        this.revokedTokenFamilies = revokedTokenFamilies;
+        if (cacheEnabled) {
+            this.verified = Caffeine.newBuilder()
+                    .maximumSize(cacheMaxSize)
+                    .expireAfter(new UntilTokenExpiry())
+                    .recordStats()
+                    .build();
+            CaffeineCacheMetrics.monitor(meterRegistry, verified, "jwt.claims");
+        } else {
+            this.verified = null;
+        }
+        this.valid = parseTimer(meterRegistry, "valid");
+        this.expired = parseTimer(meterRegistry, "expired");
+        this.invalid = parseTimer(meterRegistry, "invalid");
+    }
+
+    /**
+     * Verifies the token, or throws the {@link JwtException} that rejected it.
+     */
+    public JwtPrincipal authenticate(String token) {
+        JwtPrincipal principal = cachedOrVerify(token);
+        // Checked on every request, cached or not, so revoking a session takes effect immediately
+        if (principal.familyId() != null && revokedTokenFamilies.isRevoked(principal.familyId())) {
+            throw new JwtException("Token session has been revoked");
+        }
+        return principal;
+    }
+
+    private JwtPrincipal cachedOrVerify(String token) {
+        if (verified == null) {
+            return verify(token);
+        }
+        String key = digest(token);
+        JwtPrincipal cached = verified.getIfPresent(key);
+        if (cached != null && cached.expiresAt().isAfter(Instant.now())) {
+            return cached;
+        }
+        JwtPrincipal principal = verify(token);
+        verified.put(key, principal);
+        return principal;
+    }
+
+    private JwtPrincipal verify(String token) {
+        long start = System.nanoTime();
+        Timer outcome = invalid;
+        try {
+            Claims claims = jwtTokenProvider.parseAccessToken(token);
+            if (claims.getSubject() == null || claims.getExpiration() == null) {
+                throw new JwtException("Token has no subject or expiration");
+            }
+            String family = claims.get(JwtTokenProvider.FAMILY_CLAIM, String.class);
+            JwtPrincipal principal = new JwtPrincipal(claims.getSubject(), claims.get("provider", String.class),
+                    family == null ? null : UUID.fromString(family), claims.getExpiration().toInstant());
+            outcome = valid;
+            return principal;
+        } catch (ExpiredJwtException e) {
+            outcome = expired;
+            throw e;
+        } finally {
+            outcome.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private static Timer parseTimer(MeterRegistry meterRegistry, String outcome) {
+        return Timer.builder("jwt.parse")
+                .description("Time to parse and verify an access token")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    // The raw token is a bearer credential, so only its digest is held as a key
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static final class UntilTokenExpiry implements Expiry<String, JwtPrincipal> {
+
+        @Override
+        public long expireAfterCreate(String key, JwtPrincipal principal, long currentTime) {
+            long millis = principal.expiresAt().toEpochMilli() - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, millis));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, JwtPrincipal principal, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, principal, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, JwtPrincipal principal, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.server.security;
+
+import java.security.Principal;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * The authenticated caller behind a verified access token. {@code familyId} names the session
+ * the token was issued for, or is null for tokens issued outside one.
+ */
+public record JwtPrincipal(String email, String provider, UUID familyId, Instant expiresAt) implements Principal {
+
+    @Override
+    public String getName() {
+        return email;
+    }
+}
@@ -1,9 +1,7 @@
 package com.example.server.security;
 
-import com.example.server.util.JwtTokenProvider;
 import io.jsonwebtoken.ExpiredJwtException;
-import io.jsonwebtoken.MalformedJwtException;
-import io.jsonwebtoken.SignatureException;
+import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -12,26 +10,28 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.User;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
-import java.util.Collections;
+import java.util.List;
 
 @Component
 public class JwtRequestFilter extends OncePerRequestFilter {
 
     private static final Logger logger = LoggerFactory.getLogger(JwtRequestFilter.class);
 
-    private final JwtTokenProvider jwtTokenProvider;
+    private static final List<GrantedAuthority> USER_AUTHORITIES = List.of(new SimpleGrantedAuthority("ROLE_USER"));
+
+    private final JwtAuthenticator jwtAuthenticator;
 
     @Autowired
-    public JwtRequestFilter(JwtTokenProvider jwtTokenProvider) {
-        this.jwtTokenProvider = jwtTokenProvider;
+    public JwtRequestFilter(JwtAuthenticator jwtAuthenticator) {
+        this.jwtAuthenticator = jwtAuthenticator;
     }
 
     @Override
@@ -49,28 +49,20 @@ public class JwtRequestFilter extends OncePerRequestFilter {
 
         if (jwtToken != null) {
             try {
+                JwtPrincipal principal = jwtAuthenticator.authenticate(jwtToken);
 
-                if (jwtTokenProvider.validateToken(jwtToken, false)) {
-                    String email = jwtTokenProvider.getEmailFromToken(jwtToken);
-                    String provider = jwtTokenProvider.extractProvider(jwtToken, false);
-
-                    UserDetails userDetails = new User(email, "", Collections.singleton(() -> "ROLE_USER"));
-
-                    UsernamePasswordAuthenticationToken authentication =
-                            new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
-                    authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                UsernamePasswordAuthenticationToken authentication =
+                        new UsernamePasswordAuthenticationToken(principal, null, USER_AUTHORITIES);
+                authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
 
-                    SecurityContextHolder.getContext().setAuthentication(authentication);
-                    logger.debug("JWT authentication successful for user: {}", email);
-                } else {
-                    logger.warn("Invalid JWT token for request: {}", requestPath);
-                }
+                SecurityContextHolder.getContext().setAuthentication(authentication);
+                logger.debug("JWT authentication successful for user: {}", principal.email());
             } catch (ExpiredJwtException e) {
                 logger.warn("JWT token expired for request: {}", requestPath);
                 response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
                 response.getWriter().write("Token expired");
                 return;
-            } catch (SignatureException | MalformedJwtException e) {
+            } catch (JwtException | IllegalArgumentException e) {
                 logger.warn("Invalid JWT signature or format for request: {}", requestPath);
                 response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
                 response.getWriter().write("Invalid token");
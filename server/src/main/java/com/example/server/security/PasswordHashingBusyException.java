@@ -0,0 +1,16 @@
+package com.example.server.security;
+
+/**
+ * Thrown when the password-hashing pool is saturated and a request is turned away
+ * instead of waiting behind it.
+ */
+public class PasswordHashingBusyException extends RuntimeException {
+
+    public PasswordHashingBusyException(String message) {
+        super(message);
+    }
+
+    public PasswordHashingBusyException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -10,11 +10,11 @@ import org.springframework.security.oauth2.core.OAuth2AuthenticationException;
 import org.springframework.security.oauth2.core.user.DefaultOAuth2User;
 import org.springframework.security.oauth2.core.user.OAuth2User;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Collections;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
 
 @Service
 public class CustomOAuth2UserService implements OAuth2UserService<OAuth2UserRequest, OAuth2User> {
@@ -22,6 +22,8 @@ public class CustomOAuth2UserService implements OAuth2UserService<OAuth2UserRequ
     private static final Logger logger = LoggerFactory.getLogger(CustomOAuth2UserService.class);
 
     private final UserRepository userRepository;
+    // A lock rather than synchronized: the guarded insert blocks on JDBC, which would pin a virtual thread's carrier
+    private final ReentrantLock registrationLock = new ReentrantLock();
 
     private static final Map<String, String> PROVIDER_EMAIL_MAP = Map.of(
             "google", "email",
@@ -34,8 +36,9 @@ public class CustomOAuth2UserService implements OAuth2UserService<OAuth2UserRequ
         this.userRepository = userRepository;
     }
 
+    // Not transactional: the insert must commit before the lock is released, or a concurrent first
+    // login for the same email would still miss it and register the user twice
     @Override
-    @Transactional
     public OAuth2User loadUser(OAuth2UserRequest userRequest) {
         OAuth2User oAuth2User = getOAuth2User(userRequest);
 
@@ -49,13 +52,16 @@ public class CustomOAuth2UserService implements OAuth2UserService<OAuth2UserRequ
 
         Optional<User> existingUser = userRepository.findByEmail(email);
         if (existingUser.isEmpty()) {
-            synchronized (this) {
+            registrationLock.lock();
+            try {
                 existingUser = userRepository.findByEmail(email);
                 if (existingUser.isEmpty()) {
                     User newUser = getUser(email, fullName, username);
                     userRepository.save(newUser);
                     logger.info("New OAuth user registered: " + email);
                 }
+            } finally {
+                registrationLock.unlock();
             }
         }
 
@@ -4,6 +4,7 @@ import com.example.server.model.user.User;
 import com.example.server.repository.user.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
@@ -11,7 +12,7 @@ import org.springframework.stereotype.Service;
 import java.util.ArrayList;
 
 @Service
-public class UserDetailsServiceImpl implements UserDetailsService {
+public class UserDetailsServiceImpl implements UserDetailsService, UserDetailsPasswordService {
 
     @Autowired
     private UserRepository userRepository;
@@ -27,4 +28,16 @@ public class UserDetailsServiceImpl implements UserDetailsService {
                 new ArrayList<>()
         );
     }
+
+    // Called by the authentication provider after a successful login whose hash was at an old cost
+    @Override
+    public UserDetails updatePassword(UserDetails userDetails, String newPassword) {
+        userRepository.findByEmail(userDetails.getUsername()).ifPresent(user -> {
+            user.setPassword(newPassword);
+            userRepository.save(user);
+        });
+        return org.springframework.security.core.userdetails.User.withUserDetails(userDetails)
+                .password(newPassword)
+                .build();
+    }
 }
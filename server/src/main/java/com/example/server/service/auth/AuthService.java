@@ -10,5 +10,4 @@ public interface AuthService {
     String registerUser(RegisterRequestDTO request);
     String registerOrGetOAuth2User(String email, String provider, Map<String, Object> attributes);
     ResponseEntity<?> authenticateUser(AuthRequestDTO request);
-    ResponseEntity<?> refreshAccessToken(Map<String, String> requestBody);
 }
\ No newline at end of file
@@ -6,7 +6,6 @@ import com.example.server.DTO.auth.RegisterRequestDTO;
 import com.example.server.model.user.User;
 import com.example.server.repository.user.UserRepository;
 import com.example.server.util.JwtTokenProvider;
-import com.example.server.util.PasswordUtil;
 import com.example.server.util.ResponseUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -16,11 +15,11 @@ import org.springframework.security.authentication.*;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.oauth2.core.user.OAuth2User;
 import org.springframework.stereotype.Service;
 
 import java.time.Instant;
-import java.util.Date;
 import java.util.Map;
 import java.util.Optional;
 
@@ -30,14 +29,20 @@ public class AuthServiceImpl implements AuthService {
     private final UserRepository userRepository;
     private final AuthenticationManager authenticationManager;
     private final JwtTokenProvider jwtTokenProvider;
+    private final PasswordEncoder passwordEncoder;
+    private final RefreshTokenService refreshTokenService;
 
     private static final Logger logger = LoggerFactory.getLogger(AuthService.class);
 
     @Autowired
-    public AuthServiceImpl(UserRepository userRepository, AuthenticationManager authenticationManager, JwtTokenProvider jwtTokenProvider) {
+    public AuthServiceImpl(UserRepository userRepository, AuthenticationManager authenticationManager,
+                           JwtTokenProvider jwtTokenProvider, PasswordEncoder passwordEncoder,
+                           RefreshTokenService refreshTokenService) {
         this.userRepository = userRepository;
         this.authenticationManager = authenticationManager;
         this.jwtTokenProvider = jwtTokenProvider;
+        this.passwordEncoder = passwordEncoder;
+        this.refreshTokenService = refreshTokenService;
     }
 
     @Override
@@ -50,7 +55,7 @@ public class AuthServiceImpl implements AuthService {
         user.setUsername(request.getUsername());
         user.setFullName(request.getFullName());
         user.setEmail(request.getEmail());
-        user.setPassword(PasswordUtil.encodePassword(request.getPassword()));
+        user.setPassword(passwordEncoder.encode(request.getPassword()));
         userRepository.save(user);
         return "User registered successfully";
     }
@@ -97,44 +102,13 @@ public class AuthServiceImpl implements AuthService {
             logger.info("New OAuth user registered: " + email);
         }
 
-        String token = jwtTokenProvider.generateAccessToken(email, "USER");
+        RefreshTokenService.TokenPair tokens = refreshTokenService.startSession(email, oauthToken.getAuthorizedClientRegistrationId());
 
         AuthResponseDTO response = AuthResponseDTO.builder()
                 .username(oAuth2User.getAttribute("given_name"))
-                .token(token)
-                .refreshToken(oauthToken.getPrincipal().getAttribute("refresh_token"))  // OAuth2 refresh token if available
-                .expiresIn(jwtTokenProvider.extractExpiration(token, false))
-                .timestamp(Instant.now())
-                .build();
-
-        return ResponseEntity.ok(response);
-    }
-
-    // Refresh access token using the refresh token
-    public ResponseEntity<?> refreshAccessToken(Map<String, String> requestBody) {
-        String refreshToken = requestBody.get("refreshToken");
-        if (refreshToken == null || !jwtTokenProvider.validateRefreshToken(refreshToken)) {
-            return ResponseUtil.unauthorizedResponse("Invalid or expired refresh token");
-        }
-
-        String email = jwtTokenProvider.extractEmail(refreshToken, true);
-        if (email == null) {
-            return ResponseUtil.unauthorizedResponse("Invalid refresh token");
-        }
-
-        Optional<User> optionalUser = userRepository.findByEmail(email);
-        if (optionalUser.isEmpty()) {
-            return ResponseUtil.unauthorizedResponse("User not found");
-        }
-
-        String newAccessToken = jwtTokenProvider.generateAccessToken(email, "USER");
-        Date expiryDate = jwtTokenProvider.extractExpiration(newAccessToken, false);
-
-        AuthResponseDTO response = AuthResponseDTO.builder()
-                .username(optionalUser.get().getUsername())
-                .token(newAccessToken)
-                .refreshToken(refreshToken)
-                .expiresIn(expiryDate)
+                .token(tokens.accessToken())
+                .refreshToken(tokens.refreshToken())
+                .expiresIn(jwtTokenProvider.extractExpiration(tokens.accessToken(), false))
                 .timestamp(Instant.now())
                 .build();
 
@@ -148,11 +122,12 @@ public class AuthServiceImpl implements AuthService {
 
     private ResponseEntity<?> generateLoginResponse(Authentication authentication) {
         String username = authentication.getName();
-        String token = jwtTokenProvider.generateAccessToken(username, "USER");
+        RefreshTokenService.TokenPair tokens = refreshTokenService.startSession(username, "local");
         AuthResponseDTO response = AuthResponseDTO.builder()
                 .username(username)
-                .token(token)
-                .expiresIn(jwtTokenProvider.extractExpiration(token, false))
+                .token(tokens.accessToken())
+                .refreshToken(tokens.refreshToken())
+                .expiresIn(jwtTokenProvider.extractExpiration(tokens.accessToken(), false))
                 .timestamp(Instant.now())
                 .build();
 
@@ -0,0 +1,60 @@
+package com.example.server.service.auth;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed-size Bloom filter over UUIDs. The two halves of the UUID are already random, so they
+ * serve directly as the two base hashes for double hashing and a lookup allocates nothing.
+ */
+final class FamilyBloomFilter {
+
+    private final AtomicLongArray bits;
+    private final long bitCount;
+    private final int hashCount;
+
+    FamilyBloomFilter(int expectedInsertions, double falsePositiveRate) {
+        long n = Math.max(1, expectedInsertions);
+        long m = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        int words = (int) Math.max(1, (m + 63) / 64);
+        this.bits = new AtomicLongArray(words);
+        this.bitCount = words * 64L;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / n * Math.log(2)));
+    }
+
+    void put(UUID id) {
+        long h1 = mix(id.getMostSignificantBits());
+        long h2 = mix(id.getLeastSignificantBits()) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitCount);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current;
+            do {
+                current = bits.get(word);
+                if ((current & mask) != 0) {
+                    break;
+                }
+            } while (!bits.compareAndSet(word, current, current | mask));
+        }
+    }
+
+    boolean mightContain(UUID id) {
+        long h1 = mix(id.getMostSignificantBits());
+        long h2 = mix(id.getLeastSignificantBits()) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitCount);
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Random UUIDs carry fixed version and variant bits; a finalizer spreads them out
+    private static long mix(long value) {
+        value = (value ^ (value >>> 33)) * 0xff51afd7ed558ccdL;
+        value = (value ^ (value >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return value ^ (value >>> 33);
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.server.service.auth;
+
+/**
+ * The presented refresh token cannot be exchanged: it is forged, expired, unknown, revoked
+ * or already used.
+ */
+public class InvalidRefreshTokenException extends RuntimeException {
+
+    public InvalidRefreshTokenException(String message) {
+        super(message);
+    }
+
+    public InvalidRefreshTokenException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
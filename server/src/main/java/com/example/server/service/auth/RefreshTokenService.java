@@ -0,0 +1,156 @@
+package com.example.server.service.auth;
+
+import com.example.server.model.auth.RefreshToken;
+import com.example.server.repository.auth.RefreshTokenRepository;
+import com.example.server.util.JwtTokenProvider;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Issues and rotates tracked refresh tokens. Each login starts a token family; exchanging a
+ * refresh token marks it used and issues its successor in the same family, and presenting a
+ * used token again revokes the family. Revoked families are also recorded in
+ * {@link RevokedTokenFamilies}, which rejects the family's access tokens from memory.
+ */
+@Service
+public class RefreshTokenService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RefreshTokenService.class);
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final RevokedTokenFamilies revokedTokenFamilies;
+    private final JwtTokenProvider jwtTokenProvider;
+    private final MeterRegistry meterRegistry;
+
+    public RefreshTokenService(RefreshTokenRepository refreshTokenRepository,
+                               RevokedTokenFamilies revokedTokenFamilies,
+                               JwtTokenProvider jwtTokenProvider,
+                               MeterRegistry meterRegistry) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.revokedTokenFamilies = revokedTokenFamilies;
+        this.jwtTokenProvider = jwtTokenProvider;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Starts a new session for a user who just authenticated.
+     */
+    @Transactional
+    public TokenPair startSession(String email, String provider) {
+        return issue(email, provider, UUID.randomUUID());
+    }
+
+    /**
+     * Exchanges a refresh token for a new access token and the next refresh token in its family.
+     */
+    @Transactional(noRollbackFor = InvalidRefreshTokenException.class)
+    public TokenPair rotate(String refreshToken) {
+        Claims claims;
+        UUID tokenId;
+        UUID familyId;
+        try {
+            claims = jwtTokenProvider.parseRefreshToken(refreshToken);
+            tokenId = UUID.fromString(claims.getId());
+            familyId = UUID.fromString(claims.get(JwtTokenProvider.FAMILY_CLAIM, String.class));
+        } catch (JwtException | IllegalArgumentException | NullPointerException e) {
+            // Also covers refresh tokens issued before they were tracked, which carry no id
+            count("invalid");
+            throw new InvalidRefreshTokenException("Invalid or expired refresh token", e);
+        }
+
+        if (revokedTokenFamilies.isRevoked(familyId)) {
+            count("revoked");
+            throw new InvalidRefreshTokenException("Refresh token has been revoked");
+        }
+        if (refreshTokenRepository.markUsed(tokenId, familyId, LocalDateTime.now()) == 0) {
+            // Signed by us yet not exchangeable: replayed after use, or revoked elsewhere
+            revokeFamily(familyId);
+            count("reused");
+            logger.warn("Refresh token reuse detected for {}; revoked its session", claims.getSubject());
+            throw new InvalidRefreshTokenException("Refresh token has already been used");
+        }
+        count("rotated");
+        return issue(claims.getSubject(), claims.get("provider", String.class), familyId);
+    }
+
+    /**
+     * Ends the session the refresh token belongs to. Unknown or invalid tokens are ignored.
+     */
+    @Transactional
+    public void revoke(String refreshToken) {
+        try {
+            Claims claims = jwtTokenProvider.parseRefreshToken(refreshToken);
+            revokeFamily(UUID.fromString(claims.get(JwtTokenProvider.FAMILY_CLAIM, String.class)));
+        } catch (JwtException | IllegalArgumentException | NullPointerException e) {
+            logger.debug("Ignoring revocation of an invalid refresh token: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Ends every session of a user, e.g. after a password change or a suspected compromise.
+     */
+    @Transactional
+    public int revokeAll(String email) {
+        List<UUID> families = refreshTokenRepository.findActiveFamilyIds(email, LocalDateTime.now());
+        families.forEach(this::revokeFamily);
+        return families.size();
+    }
+
+    @Scheduled(fixedDelayString = "${auth.refresh.sweep-interval-ms:3600000}")
+    public void deleteExpired() {
+        int deleted = refreshTokenRepository.deleteExpired(LocalDateTime.now());
+        if (deleted > 0) {
+            logger.info("Deleted {} expired refresh tokens", deleted);
+        }
+    }
+
+    private TokenPair issue(String email, String provider, UUID familyId) {
+        LocalDateTime now = LocalDateTime.now();
+        RefreshToken token = new RefreshToken();
+        token.setId(UUID.randomUUID());
+        token.setFamilyId(familyId);
+        token.setUserEmail(email);
+        token.setProvider(provider);
+        token.setIssuedAt(now);
+        token.setExpiresAt(now.plusNanos(jwtTokenProvider.getRefreshExpirationMs() * 1_000_000));
+        refreshTokenRepository.save(token);
+
+        return new TokenPair(email,
+                jwtTokenProvider.generateAccessToken(email, provider, familyId),
+                jwtTokenProvider.generateRefreshToken(email, provider, token.getId(), familyId));
+    }
+
+    private void revokeFamily(UUID familyId) {
+        refreshTokenRepository.revokeFamily(familyId, LocalDateTime.now());
+        // Only reject the family's tokens in memory once the revocation is durable
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    revokedTokenFamilies.add(familyId);
+                }
+            });
+        } else {
+            revokedTokenFamilies.add(familyId);
+        }
+    }
+
+    private void count(String result) {
+        meterRegistry.counter("auth.refresh", "result", result).increment();
+    }
+
+    public record TokenPair(String email, String accessToken, String refreshToken) {
+    }
+}
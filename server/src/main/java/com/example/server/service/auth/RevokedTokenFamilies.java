@@ -0,0 +1,90 @@
+package com.example.server.service.auth;
+
+import com.example.server.repository.auth.RefreshTokenRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory set of revoked token families, checked on every authenticated request without
+ * touching the database. A Bloom filter answers the common "not revoked" case; its rare
+ * positives are confirmed against the exact set. Both are rebuilt from the store at startup
+ * and periodically (which also drops families whose tokens have all expired), and revocations
+ * made on other instances are picked up by a short incremental sync.
+ */
+@Component
+public class RevokedTokenFamilies {
+
+    private static final Logger logger = LoggerFactory.getLogger(RevokedTokenFamilies.class);
+    // Re-reads a little before the last sync so revocations committed late are not missed
+    private static final Duration SYNC_OVERLAP = Duration.ofMinutes(1);
+    private static final LocalDateTime NEVER = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final int expectedFamilies;
+    private final double falsePositiveRate;
+
+    private volatile Snapshot snapshot;
+    private volatile LocalDateTime lastSync = NEVER;
+
+    public RevokedTokenFamilies(RefreshTokenRepository refreshTokenRepository,
+                                @Value("${auth.refresh.revocation.expected-families:100000}") int expectedFamilies,
+                                @Value("${auth.refresh.revocation.false-positive-rate:0.01}") double falsePositiveRate,
+                                MeterRegistry meterRegistry) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.expectedFamilies = expectedFamilies;
+        this.falsePositiveRate = falsePositiveRate;
+        this.snapshot = new Snapshot(new FamilyBloomFilter(expectedFamilies, falsePositiveRate), ConcurrentHashMap.newKeySet());
+        meterRegistry.gauge("auth.refresh.revoked.families", this, families -> families.snapshot.exact.size());
+    }
+
+    public boolean isRevoked(UUID familyId) {
+        Snapshot current = snapshot;
+        return current.bloom.mightContain(familyId) && current.exact.contains(familyId);
+    }
+
+    public void add(UUID familyId) {
+        Snapshot current = snapshot;
+        current.exact.add(familyId);
+        current.bloom.put(familyId);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${auth.refresh.revocation.rebuild-interval-ms:3600000}",
+            initialDelayString = "${auth.refresh.revocation.rebuild-interval-ms:3600000}")
+    public void rebuild() {
+        LocalDateTime now = LocalDateTime.now();
+        Snapshot rebuilt = new Snapshot(new FamilyBloomFilter(expectedFamilies, falsePositiveRate), ConcurrentHashMap.newKeySet());
+        for (UUID familyId : refreshTokenRepository.findRevokedFamilyIds(NEVER, now)) {
+            rebuilt.exact.add(familyId);
+            rebuilt.bloom.put(familyId);
+        }
+        snapshot = rebuilt;
+        lastSync = now;
+        logger.info("Loaded {} revoked token families", rebuilt.exact.size());
+    }
+
+    @Scheduled(fixedDelayString = "${auth.refresh.revocation.sync-interval-ms:30000}")
+    public void sync() {
+        if (lastSync.equals(NEVER)) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        refreshTokenRepository.findRevokedFamilyIds(lastSync.minus(SYNC_OVERLAP), now).forEach(this::add);
+        lastSync = now;
+    }
+
+    private record Snapshot(FamilyBloomFilter bloom, Set<UUID> exact) {
+    }
+}
@@ -0,0 +1,247 @@
+package com.example.server.service.media;
+
+import com.example.server.model.media.ImageDerivative;
+import com.example.server.model.media.ImageVariant;
+import com.example.server.repository.media.ImageDerivativeRepository;
+import com.example.server.service.storage.StorageBackend;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Generates width variants and a tiny placeholder for uploaded images on a bounded worker
+ * pool, stores them next to the original ({@code <key>.w<width>.<ext>}) and records their
+ * URLs so feeds can offer a {@code srcset}.
+ */
+@Service
+public class ImageDerivativeService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImageDerivativeService.class);
+
+    private static final Set<String> SUPPORTED_TYPES = Set.of("image/jpeg", "image/png", "image/bmp");
+    private static final int PLACEHOLDER_WIDTH = 16;
+    // Guards the decoder against decompression bombs; 50 MP is beyond any camera upload
+    private static final long MAX_PIXELS = 50_000_000L;
+
+    private final StorageBackend storageBackend;
+    private final MediaService mediaService;
+    private final ImageDerivativeRepository derivativeRepository;
+    private final ThreadPoolTaskExecutor executor;
+    private final int[] widths;
+    private final MeterRegistry meterRegistry;
+    private final Counter failures;
+    private final Counter skipped;
+    // Keys queued or being generated here; identical uploads share a key and need only one pass
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+
+    public ImageDerivativeService(StorageBackend storageBackend,
+                                  MediaService mediaService,
+                                  ImageDerivativeRepository derivativeRepository,
+                                  @Qualifier("imageDerivativeExecutor") ThreadPoolTaskExecutor executor,
+                                  @Value("${media.derivatives.widths:320,640,1280}") int[] widths,
+                                  MeterRegistry meterRegistry) {
+        this.storageBackend = storageBackend;
+        this.mediaService = mediaService;
+        this.derivativeRepository = derivativeRepository;
+        this.executor = executor;
+        this.widths = Arrays.stream(widths).sorted().toArray();
+        this.meterRegistry = meterRegistry;
+        this.failures = meterRegistry.counter("media.derivatives.failures");
+        this.skipped = meterRegistry.counter("media.derivatives.skipped");
+        meterRegistry.gauge("media.derivatives.queue.depth", executor, ThreadPoolTaskExecutor::getQueueSize);
+    }
+
+    public boolean supports(String contentType) {
+        return contentType != null && SUPPORTED_TYPES.contains(contentType);
+    }
+
+    /**
+     * Queues derivative generation for a stored original. When the queue is full the image is
+     * skipped and served at its original size; decodes never run on the uploading thread, so
+     * the pool size caps their memory.
+     */
+    public void enqueue(String key, String sourceUrl, String contentType) {
+        if (!supports(contentType) || !inFlight.add(key)) {
+            return;
+        }
+        long queuedAt = System.nanoTime();
+        try {
+            executor.execute(() -> {
+                stageTimer("queued").record(Duration.ofNanos(System.nanoTime() - queuedAt));
+                try {
+                    generate(key, sourceUrl);
+                } catch (Exception e) {
+                    failures.increment();
+                    logger.warn("Could not generate derivatives for {}: {}", key, e.getMessage());
+                } finally {
+                    inFlight.remove(key);
+                }
+            });
+        } catch (TaskRejectedException e) {
+            inFlight.remove(key);
+            skipped.increment();
+            logger.warn("Derivative queue is full, serving {} without resized variants", key);
+        }
+    }
+
+    private void generate(String key, String sourceUrl) throws IOException {
+        if (derivativeRepository.findBySourceKey(key).isPresent()) {
+            return;
+        }
+        BufferedImage original = time("decode", () -> decode(key));
+        if (original == null) {
+            logger.debug("Skipping derivatives for {}: not a readable image", key);
+            return;
+        }
+        boolean alpha = original.getColorModel().hasAlpha();
+        String format = alpha ? "png" : "jpg";
+        String contentType = alpha ? "image/png" : "image/jpeg";
+
+        ImageDerivative derivative = new ImageDerivative();
+        derivative.setSourceKey(key);
+        derivative.setSourceUrl(sourceUrl);
+
+        List<ImageVariant> variants = new ArrayList<>();
+        try {
+            for (int width : widths) {
+                // Never upscale; the original itself covers its own width
+                if (width >= original.getWidth()) {
+                    break;
+                }
+                BufferedImage resized = time("resize", () -> resize(original, width, alpha));
+                byte[] encoded = time("encode", () -> encode(resized, format));
+                String variantKey = key + ".w" + width + "." + format;
+                String stored = time("store", () ->
+                        storageBackend.put(variantKey, new ByteArrayResource(encoded), encoded.length, contentType));
+                variants.add(new ImageVariant(width, stored, mediaService.urlFor(stored)));
+            }
+            derivative.setVariants(variants);
+
+            BufferedImage tiny = time("resize", () -> resize(original, PLACEHOLDER_WIDTH, false));
+            byte[] placeholder = time("encode", () -> encode(tiny, "jpg"));
+            derivative.setPlaceholder("data:image/jpeg;base64," + Base64.getEncoder().encodeToString(placeholder));
+        } catch (IOException | RuntimeException e) {
+            // Without a row the sweeper can't find the variants already stored, so they go now
+            deleteVariants(variants);
+            throw e;
+        }
+
+        try {
+            derivativeRepository.save(derivative);
+        } catch (DataIntegrityViolationException e) {
+            // Another instance generated the same source meanwhile; its variants were stored under the same keys
+            logger.debug("Derivatives for {} were generated concurrently", key);
+            return;
+        }
+        logger.debug("Generated {} variants for {}", variants.size(), key);
+    }
+
+    private void deleteVariants(List<ImageVariant> variants) {
+        for (ImageVariant variant : variants) {
+            try {
+                storageBackend.delete(variant.getStorageKey());
+            } catch (IOException | RuntimeException e) {
+                logger.warn("Could not delete variant {} of a failed generation: {}", variant.getStorageKey(), e.getMessage());
+            }
+        }
+    }
+
+    private BufferedImage decode(String key) throws IOException {
+        try (InputStream in = storageBackend.get(key);
+             ImageInputStream iis = ImageIO.createImageInputStream(in)) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(iis);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(iis, true, true);
+                long pixels = (long) reader.getWidth(0) * reader.getHeight(0);
+                if (pixels > MAX_PIXELS) {
+                    throw new IOException("Image too large to resize: " + pixels + " pixels");
+                }
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    // Halves repeatedly before the final bilinear step so large reductions don't alias
+    private static BufferedImage resize(BufferedImage source, int width, boolean alpha) {
+        BufferedImage current = source;
+        while (current.getWidth() / 2 >= width) {
+            current = draw(current, current.getWidth() / 2, alpha);
+        }
+        return current.getWidth() == width ? current : draw(current, width, alpha);
+    }
+
+    private static BufferedImage draw(BufferedImage source, int width, boolean alpha) {
+        int height = Math.max(1, (int) Math.round((double) source.getHeight() * width / source.getWidth()));
+        BufferedImage target = new BufferedImage(width, height, alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = target.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            g.dispose();
+        }
+        return target;
+    }
+
+    private static byte[] encode(BufferedImage image, String format) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        if (!ImageIO.write(image, format, out)) {
+            throw new IOException("No image writer for " + format);
+        }
+        return out.toByteArray();
+    }
+
+    private <T> T time(String stage, IOSupplier<T> work) throws IOException {
+        long start = System.nanoTime();
+        try {
+            return work.get();
+        } finally {
+            stageTimer(stage).record(Duration.ofNanos(System.nanoTime() - start));
+        }
+    }
+
+    private Timer stageTimer(String stage) {
+        return Timer.builder("media.derivatives.stage")
+                .tag("stage", stage)
+                .register(meterRegistry);
+    }
+
+    @FunctionalInterface
+    private interface IOSupplier<T> {
+        T get() throws IOException;
+    }
+}
@@ -0,0 +1,186 @@
+package com.example.server.service.media;
+
+import com.example.server.model.media.MediaObject;
+import com.example.server.repository.media.MediaObjectRepository;
+import com.example.server.service.storage.StorageBackend;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.util.UriUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Content-addressed media storage. An upload is hashed from its spooled temp file first;
+ * if the same content is already stored, its URL is returned and nothing is transferred.
+ * New content is stored under {@code media/<sha-256><ext>} and referenced by a stable
+ * {@code /api/media/<key>} URL, which {@code MediaController} redirects to a signed one.
+ * <p>
+ * References from users and content blocks are counted by URL through {@link #retain} and
+ * {@link #release}; {@link MediaSweeper} removes objects that stay unreferenced.
+ */
+@Service
+public class MediaService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MediaService.class);
+
+    private static final int HASH_BUFFER_SIZE = 64 * 1024;
+    private static final long SWEEP_POLL_MILLIS = 200;
+
+    private final StorageBackend storageBackend;
+    private final MediaObjectRepository mediaObjectRepository;
+    private final String baseUrl;
+    private final Duration sweepWait;
+    private final Counter hits;
+    private final Counter misses;
+
+    public MediaService(StorageBackend storageBackend,
+                        MediaObjectRepository mediaObjectRepository,
+                        @Value("${media.base-url:http://localhost:8080}") String baseUrl,
+                        @Value("${media.sweep-wait-ms:10000}") long sweepWaitMillis,
+                        MeterRegistry meterRegistry) {
+        this.storageBackend = storageBackend;
+        this.mediaObjectRepository = mediaObjectRepository;
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.sweepWait = Duration.ofMillis(sweepWaitMillis);
+        this.hits = meterRegistry.counter("media.uploads", "result", "duplicate");
+        this.misses = meterRegistry.counter("media.uploads", "result", "stored");
+    }
+
+    /**
+     * Stores the upload unless identical content already exists, and returns the object either way.
+     */
+    public MediaObject store(MultipartFile file, String contentType) throws IOException {
+        String hash = sha256(file);
+        long deadline = System.nanoTime() + sweepWait.toNanos();
+        while (true) {
+            MediaObject existing = mediaObjectRepository.findByContentHash(hash).orElse(null);
+            if (existing == null) {
+                break;
+            }
+            // Touching keeps the sweeper away; zero rows means it already claimed the object
+            if (mediaObjectRepository.touch(existing.getId(), LocalDateTime.now()) == 1) {
+                hits.increment();
+                logger.debug("Upload matches stored object {}, skipping transfer", existing.getStorageKey());
+                return existing;
+            }
+            // Its files are being deleted; storing the same key again has to wait until the row is gone
+            if (System.nanoTime() > deadline) {
+                throw new IOException("Identical content is being removed from storage, retry the upload shortly");
+            }
+            pause();
+        }
+        LocalDateTime now = LocalDateTime.now();
+
+        String key = "media/" + hash + extension(file.getOriginalFilename());
+        storageBackend.put(key, file, file.getSize(), contentType);
+        misses.increment();
+
+        MediaObject media = new MediaObject();
+        media.setContentHash(hash);
+        media.setStorageKey(key);
+        media.setSize(file.getSize());
+        media.setContentType(file.getContentType());
+        media.setUrl(urlFor(key));
+        media.setLastClaimedAt(now);
+        try {
+            return mediaObjectRepository.save(media);
+        } catch (DataIntegrityViolationException e) {
+            // The same content was uploaded concurrently; both wrote the same key, keep the first row
+            return mediaObjectRepository.findByContentHash(hash).orElseThrow(() -> e);
+        }
+    }
+
+    /**
+     * Records new references to media URLs; URLs that are not stored media are ignored.
+     */
+    public void retain(Collection<String> urls) {
+        replace(List.of(), urls);
+    }
+
+    public void release(Collection<String> urls) {
+        replace(urls, List.of());
+    }
+
+    /**
+     * Moves references from {@code before} to {@code after}, touching only URLs whose count changed.
+     */
+    public void replace(Collection<String> before, Collection<String> after) {
+        Map<String, Long> deltas = new HashMap<>();
+        before.stream().filter(Objects::nonNull).forEach(url -> deltas.merge(url, -1L, Long::sum));
+        after.stream().filter(Objects::nonNull).forEach(url -> deltas.merge(url, 1L, Long::sum));
+        deltas.forEach((url, delta) -> {
+            if (delta > 0) {
+                mediaObjectRepository.addReferences(url, delta);
+            } else if (delta < 0) {
+                mediaObjectRepository.adjustRefCount(url, delta);
+            }
+        });
+    }
+
+    /**
+     * The stable URL for a stored key; it never expires, signing happens per request.
+     */
+    public String urlFor(String key) {
+        return baseUrl + "/api/media/" + UriUtils.encodePath(key, StandardCharsets.UTF_8);
+    }
+
+    private static void pause() throws InterruptedIOException {
+        try {
+            Thread.sleep(SWEEP_POLL_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for media sweep");
+        }
+    }
+
+    private static String sha256(MultipartFile file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+        byte[] buffer = new byte[HASH_BUFFER_SIZE];
+        try (InputStream in = file.getInputStream()) {
+            int read;
+            while ((read = in.read(buffer)) >= 0) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static String extension(@Nullable String fileName) {
+        if (fileName == null) {
+            return "";
+        }
+        int dot = fileName.lastIndexOf('.');
+        if (dot < 0 || dot == fileName.length() - 1) {
+            return "";
+        }
+        String ext = fileName.substring(dot).toLowerCase(Locale.ROOT);
+        // Keys must stay path-safe whatever the client sent
+        return ext.matches("\\.[a-z0-9]{1,10}") ? ext : "";
+    }
+}
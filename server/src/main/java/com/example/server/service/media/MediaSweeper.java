@@ -0,0 +1,112 @@
+package com.example.server.service.media;
+
+import com.example.server.model.media.ImageDerivative;
+import com.example.server.model.media.ImageVariant;
+import com.example.server.model.media.MediaObject;
+import com.example.server.repository.media.ImageDerivativeRepository;
+import com.example.server.repository.media.MediaObjectRepository;
+import com.example.server.service.storage.StorageBackend;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Deletes stored media that nothing references. An object only qualifies once its last
+ * upload is older than the grace period, so a client that has just uploaded it has ample
+ * time to save a reference to it.
+ * <p>
+ * A claimed object is marked as deleting rather than removed, and its row is only deleted
+ * after its files are. {@link MediaService#store} sees the mark and waits, so re-uploading
+ * the same content can never be stored under a key whose delete is still in flight.
+ * Referencing the object again lifts the mark; the sweeper holds a lock on the still-marked
+ * row while it deletes the files, so a reference either lands first and the files are kept,
+ * or waits and finds the object gone.
+ */
+@Component
+public class MediaSweeper {
+
+    private static final Logger logger = LoggerFactory.getLogger(MediaSweeper.class);
+    private static final int BATCH_SIZE = 100;
+
+    private final MediaObjectRepository mediaObjectRepository;
+    private final ImageDerivativeRepository imageDerivativeRepository;
+    private final StorageBackend storageBackend;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration grace;
+
+    public MediaSweeper(MediaObjectRepository mediaObjectRepository,
+                        ImageDerivativeRepository imageDerivativeRepository,
+                        StorageBackend storageBackend,
+                        TransactionTemplate transactionTemplate,
+                        @Value("${media.unreferenced-grace-hours:192}") long graceHours) {
+        this.mediaObjectRepository = mediaObjectRepository;
+        this.imageDerivativeRepository = imageDerivativeRepository;
+        this.storageBackend = storageBackend;
+        this.transactionTemplate = transactionTemplate;
+        this.grace = Duration.ofHours(graceHours);
+    }
+
+    @Scheduled(fixedDelayString = "${media.sweep-interval-ms:3600000}")
+    public void sweep() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime before = now.minus(grace);
+        int deleted = 0;
+        // Finish earlier sweeps whose storage deletes failed before claiming anything new
+        for (MediaObject media : mediaObjectRepository.findDeleting(Limit.of(BATCH_SIZE))) {
+            if (purge(media)) {
+                deleted++;
+            }
+        }
+        for (MediaObject media : mediaObjectRepository.findUnreferenced(before, Limit.of(BATCH_SIZE))) {
+            // Claim the row first; if it was referenced or re-uploaded meanwhile the update matches nothing
+            if (mediaObjectRepository.markDeleting(media.getId(), before, now) == 0) {
+                continue;
+            }
+            if (purge(media)) {
+                deleted++;
+            }
+        }
+        if (deleted > 0) {
+            logger.info("Deleted {} unreferenced media objects", deleted);
+        }
+    }
+
+    // Storage first, the tombstone row last: until it is gone, uploads of the same content wait
+    private boolean purge(MediaObject media) {
+        try {
+            Boolean purged = transactionTemplate.execute(status -> {
+                if (mediaObjectRepository.lockTombstone(media.getId()).isEmpty()) {
+                    logger.debug("Media {} was referenced again, keeping it", media.getStorageKey());
+                    return false;
+                }
+                try {
+                    Optional<ImageDerivative> derivative = imageDerivativeRepository.findBySourceKey(media.getStorageKey());
+                    if (derivative.isPresent()) {
+                        for (ImageVariant variant : derivative.get().getVariants()) {
+                            storageBackend.delete(variant.getStorageKey());
+                        }
+                        imageDerivativeRepository.delete(derivative.get());
+                    }
+                    storageBackend.delete(media.getStorageKey());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return mediaObjectRepository.deleteTombstone(media.getId()) == 1;
+            });
+            return Boolean.TRUE.equals(purged);
+        } catch (RuntimeException e) {
+            logger.warn("Could not delete unreferenced media {}, will retry: {}", media.getStorageKey(), e.getMessage());
+            return false;
+        }
+    }
+}
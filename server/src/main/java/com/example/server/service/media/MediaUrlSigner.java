@@ -0,0 +1,112 @@
+package com.example.server.service.media;
+
+import com.example.server.repository.media.ImageDerivativeRepository;
+import com.example.server.repository.media.MediaObjectRepository;
+import com.example.server.service.storage.DownloadAuthorization;
+import com.example.server.service.storage.StorageBackend;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Signs download URLs from cached, prefix-scoped authorizations, so each prefix costs one
+ * call to the store per validity window rather than one per view. An authorization used
+ * within twice {@code refresh-ahead} of its expiry is refreshed in the background, and one
+ * with only {@code refresh-ahead} left is never handed out.
+ * <p>
+ * Only stored media and their derivatives are signed, and only under an allowed prefix, so
+ * the public redirect can't be used to mint authorizations for anything else in the bucket.
+ */
+@Component
+public class MediaUrlSigner {
+
+    // Keys confirmed to exist; unknown keys are not cached so fresh uploads resolve at once
+    private static final Duration KNOWN_KEY_TTL = Duration.ofMinutes(5);
+    private static final long KNOWN_KEY_MAX_SIZE = 100_000;
+
+    private final StorageBackend storageBackend;
+    private final MediaObjectRepository mediaObjectRepository;
+    private final ImageDerivativeRepository imageDerivativeRepository;
+    private final List<String> allowedPrefixes;
+    private final LoadingCache<String, DownloadAuthorization> authorizations;
+    private final Cache<String, Boolean> knownKeys;
+
+    public MediaUrlSigner(StorageBackend storageBackend,
+                          MediaObjectRepository mediaObjectRepository,
+                          ImageDerivativeRepository imageDerivativeRepository,
+                          @Value("${media.redirect.allowed-prefixes:media/}") List<String> allowedPrefixes,
+                          @Value("${media.redirect.authorization-validity-minutes:1440}") long validityMinutes,
+                          @Value("${media.redirect.refresh-ahead-minutes:60}") long refreshAheadMinutes) {
+        this.storageBackend = storageBackend;
+        this.mediaObjectRepository = mediaObjectRepository;
+        this.imageDerivativeRepository = imageDerivativeRepository;
+        this.allowedPrefixes = allowedPrefixes.stream().filter(prefix -> !prefix.isBlank()).toList();
+        Duration validity = Duration.ofMinutes(validityMinutes);
+        Duration refreshAhead = Duration.ofMinutes(Math.min(refreshAheadMinutes, validityMinutes / 4));
+        this.authorizations = Caffeine.newBuilder()
+                .refreshAfterWrite(validity.minus(refreshAhead.multipliedBy(2)))
+                .expireAfterWrite(validity.minus(refreshAhead))
+                .build(prefix -> storageBackend.authorizePrefix(prefix, validity));
+        this.knownKeys = Caffeine.newBuilder()
+                .expireAfterWrite(KNOWN_KEY_TTL)
+                .maximumSize(KNOWN_KEY_MAX_SIZE)
+                .build();
+    }
+
+    /**
+     * A signed URL for the key and the time it stays valid until, or empty if the key is not
+     * stored media or a derivative of it.
+     */
+    public Optional<SignedUrl> sign(String key) throws IOException {
+        String prefix = prefixOf(key);
+        if (!isAllowed(prefix) || !isKnown(key)) {
+            return Optional.empty();
+        }
+        DownloadAuthorization authorization;
+        try {
+            authorization = authorizations.get(prefix);
+        } catch (CompletionException | UncheckedIOException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            throw e;
+        }
+        return Optional.of(new SignedUrl(storageBackend.signedUrl(key, authorization), authorization.expiresAt()));
+    }
+
+    // An empty prefix would authorize the whole bucket
+    private boolean isAllowed(String prefix) {
+        return !prefix.isEmpty() && allowedPrefixes.stream().anyMatch(prefix::startsWith);
+    }
+
+    private boolean isKnown(String key) {
+        if (knownKeys.getIfPresent(key) != null) {
+            return true;
+        }
+        boolean known = mediaObjectRepository.existsByStorageKeyAndDeletingAtIsNull(key)
+                || imageDerivativeRepository.existsByVariantKey(key);
+        if (known) {
+            knownKeys.put(key, Boolean.TRUE);
+        }
+        return known;
+    }
+
+    // Keys are grouped by their directory, e.g. everything under "media/" shares one authorization
+    static String prefixOf(String key) {
+        int slash = key.lastIndexOf('/');
+        return slash < 0 ? "" : key.substring(0, slash + 1);
+    }
+
+    public record SignedUrl(String url, Instant expiresAt) {
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.server.service.notification;
+
+import com.example.server.DTO.notification.NotificationDTO;
+import com.example.server.DTO.user.FollowDTO;
+import com.example.server.model.notification.Notification;
+import com.example.server.repository.user.UserRepository;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Builds {@link NotificationDTO}s for a page of notifications: every actor on the page is
+ * resolved with a single {@code IN} query and messages are rendered from
+ * {@link NotificationTemplates}.
+ */
+@Component
+public class NotificationAssembler {
+
+    private final UserRepository userRepository;
+    private final NotificationTemplates notificationTemplates;
+
+    public NotificationAssembler(UserRepository userRepository, NotificationTemplates notificationTemplates) {
+        this.userRepository = userRepository;
+        this.notificationTemplates = notificationTemplates;
+    }
+
+    public List<NotificationDTO> assemble(List<Notification> notifications) {
+        if (notifications.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Set<Long> actorIds = new LinkedHashSet<>();
+        for (Notification notification : notifications) {
+            actorIds.addAll(actorsOf(notification));
+        }
+        Map<Long, FollowDTO> actors = actorIds.isEmpty() ? Map.of() : userRepository.findSummariesByIdIn(actorIds).stream()
+                .collect(Collectors.toMap(FollowDTO::getId, Function.identity()));
+
+        List<NotificationDTO> dtos = new ArrayList<>(notifications.size());
+        for (Notification notification : notifications) {
+            List<FollowDTO> sample = actorsOf(notification).stream()
+                    .map(actors::get)
+                    .filter(Objects::nonNull)
+                    .toList();
+            NotificationDTO dto = new NotificationDTO();
+            dto.setId(notification.getId());
+            dto.setRecipientId(notification.getRecipientId());
+            dto.setActorId(notification.getActorId());
+            dto.setType(notification.getType());
+            dto.setTargetId(notification.getTargetId());
+            dto.setRead(notification.isRead());
+            dto.setActorCount(Math.max(notification.getActorCount(), sample.size()));
+            dto.setActors(sample);
+            dto.setMessage(notificationTemplates.render(notification.getType(),
+                    sample.stream().map(FollowDTO::getName).toList(), dto.getActorCount()));
+            dto.setCreatedAt(notification.getCreatedAt());
+            dto.setUpdatedAt(notification.getUpdatedAt());
+            dtos.add(dto);
+        }
+        return dtos;
+    }
+
+    // Rows from before aggregation only have actorId; aggregates list their sample newest first
+    private static List<Long> actorsOf(Notification notification) {
+        List<Long> sample = notification.getSampleActorIds();
+        if (sample != null && !sample.isEmpty()) {
+            return sample;
+        }
+        return notification.getActorId() == null ? List.of() : List.of(notification.getActorId());
+    }
+}
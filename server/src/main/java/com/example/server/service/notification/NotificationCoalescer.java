@@ -0,0 +1,219 @@
+package com.example.server.service.notification;
+
+import com.example.server.model.notification.Notification;
+import com.example.server.repository.notification.NotificationRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Merges notification events per (recipient, type, target) over a short window, so a burst of
+ * likes on one post becomes one stored row and one websocket frame instead of thousands.
+ * <p>
+ * Events wait in memory until their key's window closes. The flush then folds them into the
+ * recipient's unread aggregate for the key (updated in place, within {@code aggregate-horizon}),
+ * or starts a new one, and hands the result to the push callback once per key, after it has
+ * committed. The aggregate is row-locked while it is merged into, so marking it read or a flush
+ * on another node can't interleave with the merge. Events whose flush fails go back into the
+ * window and are retried up to {@code max-attempts} times.
+ */
+@Component
+public class NotificationCoalescer {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationCoalescer.class);
+
+    private final NotificationRepository notificationRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final long windowMillis;
+    private final int sampleSize;
+    private final Duration aggregateHorizon;
+    private final int maxAttempts;
+    private final Counter received;
+    private final Counter flushed;
+    private final Counter dropped;
+
+    private final Map<Key, Pending> pending = new ConcurrentHashMap<>();
+
+    public NotificationCoalescer(NotificationRepository notificationRepository,
+                                 TransactionTemplate transactionTemplate,
+                                 @Value("${notifications.coalesce.window-ms:2000}") long windowMillis,
+                                 @Value("${notifications.coalesce.sample-size:3}") int sampleSize,
+                                 @Value("${notifications.coalesce.aggregate-horizon-hours:24}") long aggregateHorizonHours,
+                                 @Value("${notifications.coalesce.max-attempts:5}") int maxAttempts,
+                                 MeterRegistry meterRegistry) {
+        this.notificationRepository = notificationRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.windowMillis = windowMillis;
+        this.sampleSize = sampleSize;
+        this.aggregateHorizon = Duration.ofHours(aggregateHorizonHours);
+        this.maxAttempts = maxAttempts;
+        this.received = meterRegistry.counter("notifications.events");
+        this.flushed = meterRegistry.counter("notifications.aggregates.flushed");
+        this.dropped = meterRegistry.counter("notifications.events.dropped");
+    }
+
+    public void submit(Notification event) {
+        Objects.requireNonNull(event.getRecipientId(), "recipientId");
+        Objects.requireNonNull(event.getType(), "type");
+        received.increment();
+        Key key = new Key(event.getRecipientId(), event.getType(), event.getTargetId());
+        pending.compute(key, (k, current) -> {
+            Pending merged = current != null ? current : new Pending(System.currentTimeMillis());
+            merged.add(event.getActorId());
+            return merged;
+        });
+    }
+
+    /**
+     * Persists every key whose window has closed and pushes each resulting aggregate.
+     */
+    public void flush(Consumer<Flushed> push) {
+        flushDue(System.currentTimeMillis() - windowMillis, push);
+    }
+
+    private void flushDue(long openedBefore, Consumer<Flushed> push) {
+        for (Key key : List.copyOf(pending.keySet())) {
+            Pending[] taken = new Pending[1];
+            pending.computeIfPresent(key, (k, current) -> {
+                if (current.openedAt > openedBefore) {
+                    return current;
+                }
+                taken[0] = current;
+                return null;
+            });
+            if (taken[0] == null) {
+                continue;
+            }
+            Flushed result;
+            try {
+                result = transactionTemplate.execute(status -> merge(key, taken[0]));
+            } catch (RuntimeException e) {
+                requeue(key, taken[0], e);
+                continue;
+            }
+            flushed.increment();
+            push.accept(result);
+        }
+    }
+
+    // Back into the window, ahead of anything that arrived for the key meanwhile
+    private void requeue(Key key, Pending failed, RuntimeException cause) {
+        if (++failed.attempts >= maxAttempts) {
+            dropped.increment(failed.count);
+            logger.error("Dropping {} {} notifications for user {} after {} attempts: {}",
+                    failed.count, key.type(), key.recipientId(), failed.attempts, cause.getMessage());
+            return;
+        }
+        logger.warn("Could not store {} {} notifications for user {}, will retry: {}",
+                failed.count, key.type(), key.recipientId(), cause.getMessage());
+        pending.merge(key, failed, (current, retried) -> retried.absorb(current));
+    }
+
+    private Flushed merge(Key key, Pending events) {
+        LocalDateTime now = LocalDateTime.now();
+        Notification aggregate = notificationRepository
+                .findFirstByRecipientIdAndTypeAndTargetIdAndIsReadFalseAndUpdatedAtAfterOrderByUpdatedAtDesc(
+                        key.recipientId(), key.type(), key.targetId(), now.minus(aggregateHorizon))
+                .orElse(null);
+        boolean created = aggregate == null;
+        if (created) {
+            aggregate = new Notification();
+            aggregate.setRecipientId(key.recipientId());
+            aggregate.setType(key.type());
+            aggregate.setTargetId(key.targetId());
+            aggregate.setActorCount(0);
+            aggregate.setCreatedAt(now);
+        }
+
+        // Newest actors first; actors already in the sample are not counted twice
+        LinkedHashSet<Long> sample = new LinkedHashSet<>(events.actorsNewestFirst());
+        int repeats = 0;
+        for (Long actorId : aggregate.getSampleActorIds() == null ? List.<Long>of() : aggregate.getSampleActorIds()) {
+            if (!sample.add(actorId)) {
+                repeats++;
+            }
+        }
+        aggregate.setActorCount(aggregate.getActorCount() + events.count - repeats);
+        aggregate.setSampleActorIds(sample.stream().limit(sampleSize).collect(Collectors.toCollection(ArrayList::new)));
+        aggregate.setActorId(aggregate.getSampleActorIds().isEmpty() ? null : aggregate.getSampleActorIds().get(0));
+        aggregate.setUpdatedAt(now);
+        return new Flushed(notificationRepository.save(aggregate), created);
+    }
+
+    @PreDestroy
+    void drain() {
+        // Nobody is connected to push to during shutdown, but the rows must not be lost
+        flushDue(Long.MAX_VALUE, result -> { });
+    }
+
+    /**
+     * A stored aggregate; {@code created} when it is a new unread row rather than a merge into one.
+     */
+    public record Flushed(Notification aggregate, boolean created) {
+    }
+
+    private record Key(Long recipientId, String type, Long targetId) {
+    }
+
+    // Mutated only inside ConcurrentHashMap.compute for its key, or once taken out of the map
+    private static final class Pending {
+        private final long openedAt;
+        private final LinkedHashSet<Long> actors = new LinkedHashSet<>();
+        private int count;
+        private int attempts;
+
+        private Pending(long openedAt) {
+            this.openedAt = openedAt;
+        }
+
+        private void add(Long actorId) {
+            if (actorId == null) {
+                count++;
+                return;
+            }
+            // Re-inserted so the set stays ordered oldest to newest
+            boolean repeat = actors.remove(actorId);
+            actors.add(actorId);
+            if (!repeat) {
+                count++;
+            }
+        }
+
+        // Folds in events that arrived after this batch; an actor in both is counted once
+        private Pending absorb(Pending later) {
+            int repeats = 0;
+            for (Long actorId : later.actors) {
+                if (actors.remove(actorId)) {
+                    repeats++;
+                }
+                actors.add(actorId);
+            }
+            count += later.count - repeats;
+            return this;
+        }
+
+        private List<Long> actorsNewestFirst() {
+            List<Long> newestFirst = new ArrayList<>(actors);
+            Collections.reverse(newestFirst);
+            return newestFirst;
+        }
+    }
+}
@@ -1,11 +1,18 @@
 package com.example.server.service.notification;
 
+import com.example.server.DTO.notification.NotificationDTO;
+import com.example.server.DTO.notification.NotificationPageDTO;
 import com.example.server.model.notification.Notification;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface NotificationService {
     void sendNotification(Notification notification);
-    List<Notification> getUserNotifications(Long userId);
+    List<NotificationDTO> getUserNotifications(Long userId);
+    NotificationPageDTO getInbox(Long userId, String after, int limit);
+    long getUnreadCount(Long userId);
     void markAsRead(Long id);
+    int markAllAsRead(Long userId, String upTo);
+    int markAsRead(Long userId, Collection<Long> ids);
 }
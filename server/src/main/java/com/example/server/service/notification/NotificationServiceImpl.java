@@ -1,55 +1,127 @@
 package com.example.server.service.notification;
 
+import com.example.server.DTO.notification.NotificationDTO;
+import com.example.server.DTO.notification.NotificationPageDTO;
+import com.example.server.DTO.post.FeedCursor;
 import com.example.server.model.notification.Notification;
-import com.example.server.model.user.User;
 import com.example.server.repository.notification.NotificationRepository;
-import com.example.server.repository.user.UserRepository;
+import jakarta.annotation.Nullable;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
-import java.util.Optional;
-import java.util.stream.Collectors;
 
 @Service
 public class NotificationServiceImpl implements NotificationService {
+    private static final int MAX_PAGE_SIZE = 100;
+    // The unpaged endpoint returns only this many of the newest notifications
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    // Ids accepted by one batched read-state update
+    private static final int MAX_READ_BATCH = 500;
+
     @Autowired
     private NotificationRepository notificationRepo;
     @Autowired private SimpMessagingTemplate messagingTemplate;
     @Autowired
-    private UserRepository userRepository;
-    @Autowired
     private NotificationRepository notificationRepository;
+    @Autowired
+    private NotificationAssembler notificationAssembler;
+    @Autowired
+    private NotificationCoalescer notificationCoalescer;
+    @Autowired
+    private UnreadCountService unreadCountService;
 
+    // Stored and pushed by the coalescer's flush, merged with other events for the same target
     public void sendNotification(Notification notification) {
-        notificationRepo.save(notification);
+        notificationCoalescer.submit(notification);
+    }
+
+    @Scheduled(fixedDelayString = "${notifications.coalesce.flush-interval-ms:500}")
+    public void flushNotifications() {
+        notificationCoalescer.flush(this::push);
+    }
+
+    private void push(NotificationCoalescer.Flushed flushed) {
+        Notification aggregate = flushed.aggregate();
+        // Merging into an unread aggregate leaves the count alone; only a new row adds to it
+        if (flushed.created()) {
+            unreadCountService.adjust(aggregate.getRecipientId(), 1);
+        }
         messagingTemplate.convertAndSendToUser(
-                notification.getRecipientId().toString(),
+                aggregate.getRecipientId().toString(),
                 "/queue/notifications",
-                notification
+                notificationAssembler.assemble(List.of(aggregate)).get(0)
         );
     }
 
-    public List<Notification> getUserNotifications(Long userId) {
-        List<Notification> notifications = notificationRepository.findByRecipientIdOrderByCreatedAtDesc(userId);
-        return notifications.stream().map(this::enrichNotificationWithUsername).collect(Collectors.toList());
+    @Transactional(readOnly = true)
+    public List<NotificationDTO> getUserNotifications(Long userId) {
+        return getInbox(userId, null, DEFAULT_PAGE_SIZE).getItems();
     }
 
+    @Transactional(readOnly = true)
+    public NotificationPageDTO getInbox(Long userId, @Nullable String after, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        // Fetch one extra row to know whether another page exists
+        Limit fetchLimit = Limit.of(pageSize + 1);
+        List<Notification> notifications;
+        if (after == null || after.isBlank()) {
+            notifications = notificationRepository.findInbox(userId, fetchLimit);
+        } else {
+            FeedCursor cursor = FeedCursor.parse(after);
+            notifications = notificationRepository.findInboxAfter(userId, cursor.getCreatedAt(), cursor.getId(), fetchLimit);
+        }
+
+        String nextCursor = null;
+        if (notifications.size() > pageSize) {
+            notifications = notifications.subList(0, pageSize);
+            Notification last = notifications.get(pageSize - 1);
+            nextCursor = new FeedCursor(last.getCreatedAt(), last.getId()).toString();
+        }
+        return new NotificationPageDTO(notificationAssembler.assemble(notifications), nextCursor);
+    }
+
+    public long getUnreadCount(Long userId) {
+        return unreadCountService.unreadCount(userId);
+    }
+
+    @Transactional
     public void markAsRead(Long id) {
         Notification n = notificationRepo.findById(id).orElseThrow();
-        n.setRead(true);
-        notificationRepo.save(n);
+        if (notificationRepo.markRead(id) == 1) {
+            unreadCountService.adjust(n.getRecipientId(), -1);
+        }
     }
 
-    private Notification enrichNotificationWithUsername(Notification notification) {
-        Optional<User> sender = userRepository.findById(notification.getActorId());
-        if (sender.isPresent()) {
-            String username = sender.get().getFullName();
-            notification.setMessage("User " + username + " " + notification.getType().toLowerCase() + " you.");
+    @Transactional
+    public int markAllAsRead(Long userId, @Nullable String upTo) {
+        int updated;
+        if (upTo == null || upTo.isBlank()) {
+            updated = notificationRepo.markAllRead(userId);
         } else {
-            notification.setMessage("Unknown user " +notification.getType().toLowerCase() + " you.");
+            // Inclusive, so a page's nextCursor marks everything on that page and older
+            FeedCursor cursor = FeedCursor.parse(upTo);
+            updated = notificationRepo.markReadUpTo(userId, cursor.getCreatedAt(), cursor.getId());
+        }
+        unreadCountService.adjust(userId, -updated);
+        return updated;
+    }
+
+    @Transactional
+    public int markAsRead(Long userId, Collection<Long> ids) {
+        if (ids.size() > MAX_READ_BATCH) {
+            throw new IllegalArgumentException("At most " + MAX_READ_BATCH + " notifications can be marked at once");
+        }
+        if (ids.isEmpty()) {
+            return 0;
         }
-        return notification;
+        int updated = notificationRepo.markReadByIds(userId, ids);
+        unreadCountService.adjust(userId, -updated);
+        return updated;
     }
 }
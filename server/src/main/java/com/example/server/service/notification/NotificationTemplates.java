@@ -0,0 +1,48 @@
+package com.example.server.service.notification;
+
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Renders notification messages at read time from the notification's type and actors, so
+ * stored rows never carry text that goes stale when a name changes or more actors join.
+ */
+@Component
+public class NotificationTemplates {
+
+    private static final Map<String, String> TEMPLATES = Map.of(
+            "FOLLOW", "{actors} started following you.",
+            "LIKE", "{actors} liked your post.",
+            "COMMENT", "{actors} commented on your post.",
+            "MENTION", "{actors} mentioned you."
+    );
+    private static final String FALLBACK = "{actors} {type} you.";
+    private static final String UNKNOWN_ACTOR = "Someone";
+
+    /**
+     * @param names display names of the sampled actors, most recent first
+     * @param actorCount total actors behind the notification, at least {@code names.size()}
+     */
+    public String render(String type, List<String> names, int actorCount) {
+        String template = TEMPLATES.getOrDefault(type == null ? "" : type.toUpperCase(Locale.ROOT), FALLBACK);
+        return template
+                .replace("{actors}", actors(names, actorCount))
+                .replace("{type}", type == null ? "" : type.toLowerCase(Locale.ROOT));
+    }
+
+    // "Alice", "Alice and Bob", "Alice and 41 others"
+    private static String actors(List<String> names, int actorCount) {
+        String first = names.isEmpty() ? UNKNOWN_ACTOR : names.get(0);
+        int others = Math.max(actorCount, names.size()) - 1;
+        if (others <= 0) {
+            return first;
+        }
+        if (others == 1 && names.size() == 2) {
+            return first + " and " + names.get(1);
+        }
+        return first + " and " + others + (others == 1 ? " other" : " others");
+    }
+}
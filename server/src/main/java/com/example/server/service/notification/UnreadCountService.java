@@ -0,0 +1,133 @@
+package com.example.server.service.notification;
+
+import com.example.server.DTO.notification.UnreadCountDTO;
+import com.example.server.repository.notification.NotificationRepository;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.MessagingException;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-user unread notification counters held in memory, so the badge is served without
+ * counting rows or fetching the inbox. A counter is seeded from the database the first time
+ * it is needed, and every stored change pushes the new count to the user on
+ * {@code /user/queue/notifications/count}.
+ * <p>
+ * Other nodes change the same users' notifications, so the node that makes a change re-seeds
+ * the counter from the primary before pushing it rather than trusting its own copy; the pushed
+ * value is absolute and would otherwise overwrite a correct badge with a stale one. Counters
+ * are also re-seeded {@code resync-seconds} after they were loaded, however busy they are,
+ * which bounds how stale a counter read on another node can be.
+ */
+@Service
+public class UnreadCountService {
+
+    private static final Logger logger = LoggerFactory.getLogger(UnreadCountService.class);
+
+    static final String DESTINATION = "/queue/notifications/count";
+
+    private final NotificationRepository notificationRepository;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final LoadingCache<Long, Long> counts;
+
+    public UnreadCountService(NotificationRepository notificationRepository,
+                              SimpMessagingTemplate messagingTemplate,
+                              TransactionTemplate transactionTemplate,
+                              @Value("${notifications.unread.max-size:100000}") long maxSize,
+                              @Value("${notifications.unread.resync-seconds:300}") long resyncSeconds,
+                              MeterRegistry meterRegistry) {
+        this.notificationRepository = notificationRepository;
+        this.messagingTemplate = messagingTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.counts = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new SinceSeeded(TimeUnit.SECONDS.toNanos(resyncSeconds)))
+                .recordStats()
+                .build(notificationRepository::countByRecipientIdAndIsReadFalse);
+        CaffeineCacheMetrics.monitor(meterRegistry, counts, "notifications.unread");
+    }
+
+    public long unreadCount(Long userId) {
+        return counts.get(userId);
+    }
+
+    /**
+     * Records a change of {@code delta} unread notifications and pushes the new count. Inside a
+     * transaction this waits for the commit, so a rolled back change is never counted.
+     */
+    public void adjust(Long userId, long delta) {
+        if (delta == 0) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(userId, delta);
+                }
+            });
+        } else {
+            apply(userId, delta);
+        }
+    }
+
+    private void apply(Long userId, long delta) {
+        long unread;
+        try {
+            unread = seed(userId);
+        } catch (RuntimeException e) {
+            // Without the database the local counter is the best guess; the resync corrects it
+            logger.warn("Could not re-seed unread count of user {}: {}", userId, e.getMessage());
+            Long adjusted = counts.asMap().computeIfPresent(userId, (id, current) -> Math.max(0, current + delta));
+            if (adjusted == null) {
+                return;
+            }
+            unread = adjusted;
+        }
+        try {
+            messagingTemplate.convertAndSendToUser(userId.toString(), DESTINATION, new UnreadCountDTO(unread, delta));
+        } catch (MessagingException e) {
+            logger.warn("Could not push unread count to user {}: {}", userId, e.getMessage());
+        }
+    }
+
+    // A read-write transaction, so the count comes from the primary and includes the change just committed
+    private long seed(Long userId) {
+        Long unread = transactionTemplate.execute(status -> notificationRepository.countByRecipientIdAndIsReadFalse(userId));
+        long seeded = unread == null ? 0 : unread;
+        counts.put(userId, seeded);
+        return seeded;
+    }
+
+    // Re-seeds update the value but keep the deadline set when the counter was seeded
+    private record SinceSeeded(long resyncNanos) implements Expiry<Long, Long> {
+
+        @Override
+        public long expireAfterCreate(Long userId, Long unread, long currentTime) {
+            return resyncNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(Long userId, Long unread, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(Long userId, Long unread, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
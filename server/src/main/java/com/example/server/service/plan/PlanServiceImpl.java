@@ -13,6 +13,7 @@ import org.springframework.stereotype.Service;
 import com.example.server.DTO.plan.PlanDTO;
 import com.example.server.model.plan.Plan;
 import com.example.server.repository.plan.PlanRepository;
+import com.example.server.service.search.SearchIndexer;
 
 @Service
 public class PlanServiceImpl implements PlanService {
@@ -20,6 +21,9 @@ public class PlanServiceImpl implements PlanService {
     @Autowired
     private PlanRepository planRepository;
 
+    @Autowired
+    private SearchIndexer searchIndexer;
+
     @Override
     public PlanDTO createPlan(PlanDTO planDTO) {
         // Generate ID if not provided
@@ -48,6 +52,7 @@ public class PlanServiceImpl implements PlanService {
         // Convert DTO to entity and save
         Plan plan = convertToEntity(planDTO);
         Plan savedPlan = planRepository.save(plan);
+        searchIndexer.indexPlan(savedPlan);
         
         // Return the saved entity as DTO
         return convertToDTO(savedPlan);
@@ -106,6 +111,7 @@ public class PlanServiceImpl implements PlanService {
             
             // Save and return
             Plan updatedPlan = planRepository.save(existingPlan);
+            searchIndexer.indexPlan(updatedPlan);
             return convertToDTO(updatedPlan);
         }
         
@@ -118,6 +124,7 @@ public class PlanServiceImpl implements PlanService {
         // Check if plan exists
         if (planRepository.existsById(id)) {
             planRepository.deleteById(id);
+            searchIndexer.removePlan(id);
             return true;
         }
         return false;
@@ -0,0 +1,106 @@
+package com.example.server.service.post;
+
+import com.example.server.DTO.post.CommentResponseDTO;
+import com.example.server.repository.post.CommentRepository;
+import com.example.server.repository.post.CommentRow;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds a post's comment tree from flat rows, linking replies to parents in O(n).
+ * <p>
+ * The whole thread is fetched in one query. A page is fetched in two: the page of
+ * top-level comments, then their replies through a recursive query that stops at the
+ * depth cap. That way a page never reads more than the comments it returns.
+ */
+@Component
+public class CommentTreeLoader {
+
+    private final CommentRepository commentRepository;
+
+    public CommentTreeLoader(CommentRepository commentRepository) {
+        this.commentRepository = commentRepository;
+    }
+
+    public List<CommentResponseDTO> loadAll(Long postId) {
+        return link(commentRepository.findThreadRows(postId));
+    }
+
+    /**
+     * @param page     zero-based page of top-level comments
+     * @param size     top-level comments per page
+     * @param maxDepth deepest reply level to include, 0 for top-level comments only
+     */
+    public List<CommentResponseDTO> load(Long postId, int page, int size, int maxDepth) {
+        List<CommentRow> rows = new ArrayList<>(commentRepository.findRootRows(postId, PageRequest.of(page, size)));
+        if (rows.isEmpty()) {
+            return new ArrayList<>();
+        }
+        if (maxDepth > 0) {
+            List<Long> rootIds = rows.stream().map(CommentRow::getId).toList();
+            for (Object[] reply : commentRepository.findReplyRows(rootIds, maxDepth)) {
+                rows.add(toRow(reply));
+            }
+        }
+        List<CommentResponseDTO> roots = link(rows);
+        roots.forEach(root -> capDepth(root, 0, maxDepth));
+        return roots;
+    }
+
+    // Rows may arrive in any order; only rows without a parent become roots
+    private List<CommentResponseDTO> link(List<CommentRow> rows) {
+        Map<Long, CommentResponseDTO> byId = new HashMap<>(rows.size() * 2);
+        for (CommentRow row : rows) {
+            byId.put(row.getId(), toDto(row));
+        }
+
+        List<CommentResponseDTO> roots = new ArrayList<>();
+        for (CommentRow row : rows) {
+            CommentResponseDTO dto = byId.get(row.getId());
+            CommentResponseDTO parent = row.getParentId() != null ? byId.get(row.getParentId()) : null;
+            if (parent != null) {
+                parent.getReplies().add(dto);
+            } else if (row.getParentId() == null) {
+                roots.add(dto);
+            }
+        }
+        return roots;
+    }
+
+    // The query already stops at the cap; this keeps the contract independent of it
+    private void capDepth(CommentResponseDTO comment, int depth, int maxDepth) {
+        if (depth >= maxDepth) {
+            comment.setReplies(new ArrayList<>());
+            return;
+        }
+        comment.getReplies().forEach(reply -> capDepth(reply, depth + 1, maxDepth));
+    }
+
+    private static CommentRow toRow(Object[] columns) {
+        Object createdAt = columns[4];
+        return new CommentRow(
+                ((Number) columns[0]).longValue(),
+                columns[1] != null ? ((Number) columns[1]).longValue() : null,
+                (String) columns[2],
+                (String) columns[3],
+                createdAt instanceof Timestamp timestamp ? timestamp.toLocalDateTime() : (LocalDateTime) createdAt
+        );
+    }
+
+    private CommentResponseDTO toDto(CommentRow row) {
+        CommentResponseDTO dto = new CommentResponseDTO();
+        dto.setId(row.getId());
+        dto.setContent(row.getContent());
+        dto.setAuthor(row.getAuthor());
+        dto.setCreatedAt(row.getCreatedAt());
+        dto.setReplies(new ArrayList<>());
+        return dto;
+    }
+}
@@ -0,0 +1,471 @@
+package com.example.server.service.post;
+
+import com.example.server.repository.post.LikeRepository;
+import jakarta.annotation.Nullable;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Write-behind ingestion for like toggles, enabled with {@code posts.likes.mode=buffered}.
+ * <p>
+ * A toggle only updates in-memory state: the desired membership of (post, user) and a
+ * per-post count of likes not yet persisted. State is split into stripes by post id, each
+ * with its own lock and write-ahead log ({@code <wal-path>.<stripe>}), so toggles on
+ * different posts rarely contend. Every toggle is appended to its stripe's log before it
+ * is acknowledged and the logs are replayed on startup.
+ * <p>
+ * Appends reach the OS but are only fsynced at flush time, so a process crash loses nothing
+ * while an OS crash or power loss can drop toggles since the last flush. Set
+ * {@code posts.likes.wal-fsync=true} to force every append to disk instead.
+ * <p>
+ * A scheduled flush writes the net changes of all stripes with batched, idempotent
+ * inserts/deletes, adjusts {@code posts.like_count} by the rows actually affected, then
+ * trims the logs.
+ */
+@Component
+@ConditionalOnProperty(name = "posts.likes.mode", havingValue = "buffered")
+public class LikeBuffer {
+
+    private static final Logger logger = LoggerFactory.getLogger(LikeBuffer.class);
+
+    // INSERT ... SELECT is never rewritten by reWriteBatchedInserts, so batch counts stay exact;
+    // a like inserted concurrently by a sync toggle or another node counts 0 instead of twice
+    private static final String INSERT_LIKE =
+            "INSERT INTO likes (post_id, user_id, liked_at) " +
+            "SELECT p.id, u.id, now() FROM posts p, users u WHERE p.id = ? AND u.id = ? " +
+            "ON CONFLICT (post_id, user_id) DO NOTHING";
+    private static final String DELETE_LIKE = "DELETE FROM likes WHERE post_id = ? AND user_id = ?";
+
+    private final LikeRepository likeRepository;
+    private final PostCounters postCounters;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Path walPath;
+    private final boolean fsync;
+    private final Stripe[] stripes;
+    // One flush at a time. A lock rather than synchronized: the flush blocks on JDBC, which would
+    // pin a virtual thread's carrier
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    // Net likes per post that are visible in memory but not yet in posts.like_count;
+    // changed only under the post's stripe lock, and entries that reach zero are removed
+    private final Map<Long, Long> pendingDeltas = new ConcurrentHashMap<>();
+
+    public LikeBuffer(LikeRepository likeRepository,
+                      PostCounters postCounters,
+                      JdbcTemplate jdbcTemplate,
+                      TransactionTemplate transactionTemplate,
+                      @Value("${posts.likes.wal-path:data/likes.wal}") String walPath,
+                      @Value("${posts.likes.wal-fsync:false}") boolean fsync,
+                      @Value("${posts.likes.stripes:16}") int stripes) {
+        this.likeRepository = likeRepository;
+        this.postCounters = postCounters;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.walPath = Paths.get(walPath);
+        this.fsync = fsync;
+        this.stripes = new Stripe[Math.max(1, stripes)];
+        for (int i = 0; i < this.stripes.length; i++) {
+            this.stripes[i] = new Stripe(this.walPath.resolveSibling(this.walPath.getFileName() + "." + i));
+        }
+    }
+
+    @PostConstruct
+    public void init() throws IOException {
+        if (walPath.getParent() != null) {
+            Files.createDirectories(walPath.getParent());
+        }
+        int replayed = replay();
+        for (Stripe stripe : stripes) {
+            stripe.open();
+        }
+        logger.info("Like buffer enabled, {} log stripes at {}.* ({} unflushed toggles replayed)",
+                stripes.length, walPath, replayed);
+    }
+
+    /**
+     * Flips the like state of a post for a user and returns whether it is now liked.
+     */
+    public boolean toggle(Long postId, Long userId) {
+        LikeKey key = new LikeKey(postId, userId);
+        Stripe stripe = stripeOf(postId);
+        while (true) {
+            // Resolve the persisted state outside the lock; it is only used if the key is not buffered
+            // and no flush settled this stripe in between, otherwise it may already be stale
+            long generation = stripe.generation;
+            Boolean persisted = stripe.isBuffered(key) ? null : likeRepository.existsByPostIdAndUserId(postId, userId);
+
+            stripe.lock.lock();
+            try {
+                PendingLike current = stripe.pending.get(key);
+                if (current == null) {
+                    PendingLike flushing = stripe.inFlight.get(key);
+                    if (flushing != null) {
+                        persisted = flushing.desired();
+                    } else if (persisted == null || stripe.generation != generation) {
+                        continue;
+                    }
+                }
+                PendingLike updated = current == null
+                        ? new PendingLike(persisted, !persisted)
+                        : new PendingLike(current.persisted(), !current.desired());
+                stripe.append(key, updated.desired());
+                stripe.pending.put(key, updated);
+                if (updated.persisted() != null) {
+                    addDelta(postId, updated.desired() ? 1 : -1);
+                }
+                return updated.desired();
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Likes on the post that have been accepted but not yet written to {@code posts.like_count}.
+     */
+    public long pendingDelta(Long postId) {
+        return pendingDeltas.getOrDefault(postId, 0L);
+    }
+
+    /**
+     * Whether the user likes the post according to a toggle not yet flushed, or null if none is buffered.
+     */
+    @Nullable
+    public Boolean bufferedState(Long postId, Long userId) {
+        LikeKey key = new LikeKey(postId, userId);
+        Stripe stripe = stripeOf(postId);
+        PendingLike like = stripe.pending.get(key);
+        if (like == null) {
+            like = stripe.inFlight.get(key);
+        }
+        return like == null ? null : like.desired();
+    }
+
+    @Scheduled(fixedDelayString = "${posts.likes.flush-interval-ms:1000}")
+    public void flush() {
+        flushLock.lock();
+        try {
+            flushPending();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void flushPending() {
+        Map<LikeKey, PendingLike> batch = new HashMap<>();
+        long[] logMarks = new long[stripes.length];
+        for (int i = 0; i < stripes.length; i++) {
+            Stripe stripe = stripes[i];
+            stripe.lock.lock();
+            try {
+                if (stripe.pending.isEmpty()) {
+                    logMarks[i] = -1;
+                    continue;
+                }
+                logMarks[i] = stripe.sync();
+                Map<LikeKey, PendingLike> drained = new HashMap<>(stripe.pending);
+                stripe.pending.clear();
+                stripe.inFlight = drained;
+                batch.putAll(drained);
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        try {
+            transactionTemplate.executeWithoutResult(status -> write(batch));
+        } catch (RuntimeException e) {
+            logger.error("Failed to flush {} buffered likes, will retry: {}", batch.size(), e.getMessage());
+            for (int i = 0; i < stripes.length; i++) {
+                if (logMarks[i] >= 0) {
+                    restore(stripes[i]);
+                }
+            }
+            return;
+        }
+        for (int i = 0; i < stripes.length; i++) {
+            if (logMarks[i] >= 0) {
+                settle(stripes[i], logMarks[i]);
+            }
+        }
+        logger.debug("Flushed {} buffered likes in {} ms", batch.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @PreDestroy
+    public void shutdown() throws IOException {
+        flush();
+        for (Stripe stripe : stripes) {
+            stripe.wal.close();
+        }
+    }
+
+    private void write(Map<LikeKey, PendingLike> batch) {
+        List<Object[]> inserts = new ArrayList<>();
+        List<Object[]> deletes = new ArrayList<>();
+        List<LikeKey> insertKeys = new ArrayList<>();
+        List<LikeKey> deleteKeys = new ArrayList<>();
+        batch.forEach((key, like) -> {
+            if (like.persisted() != null && like.persisted() == like.desired()) {
+                return; // toggled back to where it started
+            }
+            if (like.desired()) {
+                inserts.add(new Object[]{key.postId(), key.userId()});
+                insertKeys.add(key);
+            } else {
+                deletes.add(new Object[]{key.postId(), key.userId()});
+                deleteKeys.add(key);
+            }
+        });
+
+        // Derive counter changes from rows actually affected, so replays stay idempotent
+        Map<Long, Long> deltas = new HashMap<>();
+        int[] inserted = inserts.isEmpty() ? new int[0] : jdbcTemplate.batchUpdate(INSERT_LIKE, inserts);
+        for (int i = 0; i < inserted.length; i++) {
+            deltas.merge(insertKeys.get(i).postId(), (long) Math.max(inserted[i], 0), Long::sum);
+        }
+        int[] deleted = deletes.isEmpty() ? new int[0] : jdbcTemplate.batchUpdate(DELETE_LIKE, deletes);
+        for (int i = 0; i < deleted.length; i++) {
+            deltas.merge(deleteKeys.get(i).postId(), (long) -Math.max(deleted[i], 0), Long::sum);
+        }
+
+        postCounters.adjustLikes(deltas);
+    }
+
+    // The batch is in the database: drop its share of the in-memory counters and its log prefix
+    private void settle(Stripe stripe, long logMark) {
+        stripe.lock.lock();
+        try {
+            stripe.inFlight.forEach(this::removeDelta);
+            stripe.trim(logMark);
+            stripe.inFlight = Map.of();
+            stripe.generation++;
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    // The batch failed: put it back, unless a newer toggle for the same key supersedes it
+    private void restore(Stripe stripe) {
+        stripe.lock.lock();
+        try {
+            stripe.inFlight.forEach((key, like) -> {
+                if (stripe.pending.putIfAbsent(key, like) != null) {
+                    removeDelta(key, like);
+                }
+            });
+            stripe.inFlight = Map.of();
+            stripe.generation++;
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    private void removeDelta(LikeKey key, PendingLike like) {
+        if (like.persisted() != null && like.persisted() != like.desired()) {
+            addDelta(key.postId(), like.desired() ? -1 : 1);
+        }
+    }
+
+    private void addDelta(Long postId, long delta) {
+        pendingDeltas.merge(postId, delta, (a, b) -> a + b == 0 ? null : a + b);
+    }
+
+    private Stripe stripeOf(Long postId) {
+        return stripes[Math.floorMod(Long.hashCode(postId), stripes.length)];
+    }
+
+    /**
+     * Loads every log left behind, including the single-file log of earlier versions and
+     * stripes from a different stripe count, then rewrites them as this instance's stripes.
+     */
+    private int replay() throws IOException {
+        List<Path> logs = new ArrayList<>();
+        if (Files.exists(walPath)) {
+            logs.add(walPath);
+        }
+        Path dir = walPath.toAbsolutePath().getParent();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, walPath.getFileName() + ".[0-9]*")) {
+            stream.forEach(log -> {
+                if (!log.getFileName().toString().endsWith(".tmp")) {
+                    logs.add(log);
+                }
+            });
+        }
+
+        Map<LikeKey, Boolean> desired = new LinkedHashMap<>();
+        int count = 0;
+        for (Path log : logs) {
+            try (BufferedReader reader = Files.newBufferedReader(log, StandardCharsets.US_ASCII)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    String[] parts = line.trim().split(" ");
+                    if (parts.length != 3) {
+                        continue; // torn write at the tail
+                    }
+                    try {
+                        desired.put(new LikeKey(Long.parseLong(parts[0]), Long.parseLong(parts[1])), "1".equals(parts[2]));
+                        count++;
+                    } catch (NumberFormatException e) {
+                        logger.warn("Skipping corrupt like log entry: {}", line);
+                    }
+                }
+            }
+        }
+
+        Map<Stripe, StringBuilder> compacted = new HashMap<>();
+        desired.forEach((key, liked) -> {
+            // Persisted state is unknown after a crash; the flush settles it from the database
+            Stripe stripe = stripeOf(key.postId());
+            stripe.pending.put(key, new PendingLike(null, liked));
+            compacted.computeIfAbsent(stripe, s -> new StringBuilder()).append(line(key, liked));
+        });
+        for (Stripe stripe : stripes) {
+            StringBuilder content = compacted.get(stripe);
+            Path tmp = stripe.path.resolveSibling(stripe.path.getFileName() + ".tmp");
+            try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                if (content != null) {
+                    out.write(ByteBuffer.wrap(content.toString().getBytes(StandardCharsets.US_ASCII)));
+                }
+                out.force(true);
+            }
+            Files.move(tmp, stripe.path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        for (Path log : logs) {
+            if (!isStripeLog(log)) {
+                Files.deleteIfExists(log);
+            }
+        }
+        return count;
+    }
+
+    private boolean isStripeLog(Path log) {
+        for (Stripe stripe : stripes) {
+            if (stripe.path.toAbsolutePath().equals(log.toAbsolutePath())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String line(LikeKey key, boolean desired) {
+        return key.postId() + " " + key.userId() + " " + (desired ? 1 : 0) + "\n";
+    }
+
+    // One lock, pending map and log per stripe; the log and pending map change only under the lock
+    private final class Stripe {
+        private final Path path;
+        private final ReentrantLock lock = new ReentrantLock();
+        // Desired state per (post, user) since the last successful flush
+        private final Map<LikeKey, PendingLike> pending = new ConcurrentHashMap<>();
+        // Batch currently being written; its desired state is what the database is about to hold
+        private volatile Map<LikeKey, PendingLike> inFlight = Map.of();
+        // Bumped whenever a flushed batch is settled or restored
+        private volatile long generation;
+        private FileChannel wal;
+
+        private Stripe(Path path) {
+            this.path = path;
+        }
+
+        private boolean isBuffered(LikeKey key) {
+            return pending.containsKey(key) || inFlight.containsKey(key);
+        }
+
+        private void open() throws IOException {
+            wal = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+
+        private void append(LikeKey key, boolean desired) {
+            try {
+                wal.write(ByteBuffer.wrap(line(key, desired).getBytes(StandardCharsets.US_ASCII)));
+                if (fsync) {
+                    wal.force(false);
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not append to like log " + path, e);
+            }
+        }
+
+        private long sync() {
+            try {
+                wal.force(false);
+                return wal.size();
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not sync like log " + path, e);
+            }
+        }
+
+        // Drops the flushed prefix of the log, keeping toggles accepted while the flush ran
+        private void trim(long logMark) {
+            Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+            try {
+                try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                    long remaining = wal.size() - logMark;
+                    long copied = 0;
+                    while (copied < remaining) {
+                        copied += wal.transferTo(logMark + copied, remaining - copied, out);
+                    }
+                    out.force(true);
+                }
+                wal.close();
+                Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                open();
+            } catch (IOException e) {
+                // The log still holds flushed entries; replaying them later is harmless
+                logger.warn("Could not trim like log {}: {}", path, e.getMessage());
+                reopen();
+            }
+        }
+
+        private void reopen() {
+            if (wal.isOpen()) {
+                return;
+            }
+            try {
+                open();
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not reopen like log " + path, e);
+            }
+        }
+    }
+
+    private record LikeKey(Long postId, Long userId) {
+    }
+
+    private record PendingLike(Boolean persisted, boolean desired) {
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.server.service.post;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Periodically repairs drift between the denormalized like/comment counters on
+ * {@code posts} and the {@code likes}/{@code comments} tables they summarize.
+ * <p>
+ * The first run after startup checks every post, which also backfills rows created before
+ * the counters existed. Later runs only check posts whose counters were adjusted since the
+ * previous run started, and every {@code full-sweep-every} runs all posts are checked again:
+ * drift that never stamps the counters, such as likes and comments removed by cascade or a
+ * lost buffered adjustment, is only found that way. Posts are read in id order, one batch at a time, and each repair is
+ * a compare-and-set against the counter value read with the counts. A repair that loses to
+ * a concurrent adjustment is skipped; that adjustment marks the post for the next run.
+ */
+@Component
+public class PostCounterReconciler {
+
+    private static final Logger logger = LoggerFactory.getLogger(PostCounterReconciler.class);
+
+    // Counters and counts come from the same statement snapshot, so they agree with each other
+    private static final String SELECT_COUNTS =
+            "SELECT p.id, p.like_count, p.comment_count, " +
+            "(SELECT COUNT(*) FROM likes l WHERE l.post_id = p.id) AS likes, " +
+            "(SELECT COUNT(*) FROM comments c WHERE c.post_id = p.id) AS comments " +
+            "FROM posts p WHERE p.id > ? %s ORDER BY p.id LIMIT ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PostCounters postCounters;
+    private final int batchSize;
+    private final Duration overlap;
+    private final int fullSweepEvery;
+    // A lock rather than synchronized: a run blocks on JDBC, which would pin a virtual thread's carrier
+    private final ReentrantLock runLock = new ReentrantLock();
+
+    // Database time the previous run started; null until the first full pass completes
+    private LocalDateTime lastRunStart;
+    private int runsSinceFullSweep;
+
+    public PostCounterReconciler(JdbcTemplate jdbcTemplate,
+                                 PostCounters postCounters,
+                                 @Value("${posts.counters.reconcile-batch-size:500}") int batchSize,
+                                 @Value("${posts.counters.reconcile-overlap-ms:60000}") long overlapMillis,
+                                 @Value("${posts.counters.full-sweep-every:12}") int fullSweepEvery) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.postCounters = postCounters;
+        this.batchSize = batchSize;
+        this.overlap = Duration.ofMillis(overlapMillis);
+        this.fullSweepEvery = Math.max(1, fullSweepEvery);
+    }
+
+    @Scheduled(fixedDelayString = "${posts.counters.reconcile-interval-ms:300000}")
+    public void reconcile() {
+        // A run still in progress already covers everything this one would check
+        if (!runLock.tryLock()) {
+            return;
+        }
+        try {
+            run();
+        } finally {
+            runLock.unlock();
+        }
+    }
+
+    private void run() {
+        LocalDateTime runStart = jdbcTemplate.queryForObject("SELECT LOCALTIMESTAMP", LocalDateTime.class);
+        boolean full = lastRunStart == null || runsSinceFullSweep + 1 >= fullSweepEvery;
+        // Adjustments are stamped with their transaction's start, which can precede the commit by a while
+        LocalDateTime since = full ? null : lastRunStart.minus(overlap);
+
+        int checked = 0;
+        int repaired = 0;
+        int skipped = 0;
+        long afterId = 0;
+        while (true) {
+            List<CounterRow> rows = since == null
+                    ? jdbcTemplate.query(SELECT_COUNTS.formatted(""), this::mapRow, afterId, batchSize)
+                    : jdbcTemplate.query(SELECT_COUNTS.formatted("AND p.counters_updated_at >= ?"), this::mapRow,
+                            afterId, since, batchSize);
+            for (CounterRow row : rows) {
+                if (row.likeCount() != row.likes()) {
+                    if (postCounters.repairLikes(row.id(), row.likeCount(), row.likes())) {
+                        repaired++;
+                    } else {
+                        skipped++;
+                    }
+                }
+                if (row.commentCount() != row.comments()) {
+                    if (postCounters.repairComments(row.id(), row.commentCount(), row.comments())) {
+                        repaired++;
+                    } else {
+                        skipped++;
+                    }
+                }
+            }
+            checked += rows.size();
+            if (rows.size() < batchSize) {
+                break;
+            }
+            afterId = rows.get(rows.size() - 1).id();
+        }
+        lastRunStart = runStart;
+        runsSinceFullSweep = full ? 0 : runsSinceFullSweep + 1;
+
+        if (repaired > 0) {
+            logger.warn("Repaired {} post counters ({} posts checked, {} changed concurrently)", repaired, checked, skipped);
+        } else {
+            logger.debug("Post counters are consistent ({} posts checked, {} changed concurrently)", checked, skipped);
+        }
+    }
+
+    private CounterRow mapRow(ResultSet rs, int rowNum) throws SQLException {
+        return new CounterRow(rs.getLong("id"), rs.getLong("like_count"), rs.getLong("comment_count"),
+                rs.getLong("likes"), rs.getLong("comments"));
+    }
+
+    private record CounterRow(long id, long likeCount, long commentCount, long likes, long comments) {
+    }
+}
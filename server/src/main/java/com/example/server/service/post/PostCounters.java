@@ -0,0 +1,99 @@
+package com.example.server.service.post;
+
+import com.example.server.model.post.Post;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Atomic in-place updates of the denormalized like/comment counters on {@code posts}.
+ * <p>
+ * These go through JDBC rather than a native Hibernate query: Hibernate would treat a
+ * native update as touching every cached entity and clear the whole second-level cache.
+ * Instead only the affected {@link Post} entries are evicted, again after commit so a
+ * concurrent reader cannot re-cache the old row.
+ */
+@Component
+public class PostCounters {
+
+    private static final String ADJUST_LIKES =
+            "UPDATE posts SET like_count = like_count + ?, counters_updated_at = LOCALTIMESTAMP WHERE id = ?";
+    private static final String ADJUST_COMMENTS =
+            "UPDATE posts SET comment_count = comment_count + ?, counters_updated_at = LOCALTIMESTAMP WHERE id = ?";
+    // Compare-and-set, so a repair never overwrites an adjustment committed after the counts were read
+    private static final String REPAIR_LIKES = "UPDATE posts SET like_count = ? WHERE id = ? AND like_count = ?";
+    private static final String REPAIR_COMMENTS = "UPDATE posts SET comment_count = ? WHERE id = ? AND comment_count = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManagerFactory entityManagerFactory;
+
+    public PostCounters(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    public void adjustLikes(Long postId, long delta) {
+        jdbcTemplate.update(ADJUST_LIKES, delta, postId);
+        evict(List.of(postId));
+    }
+
+    public void adjustComments(Long postId, long delta) {
+        jdbcTemplate.update(ADJUST_COMMENTS, delta, postId);
+        evict(List.of(postId));
+    }
+
+    public void adjustLikes(Map<Long, Long> deltas) {
+        List<Object[]> args = new ArrayList<>();
+        deltas.forEach((postId, delta) -> {
+            if (delta != 0) {
+                args.add(new Object[]{delta, postId});
+            }
+        });
+        if (args.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(ADJUST_LIKES, args);
+        evict(deltas.keySet());
+    }
+
+    /**
+     * Sets the like counter to {@code actual} if it still holds {@code expected}; returns whether it did.
+     */
+    public boolean repairLikes(Long postId, long expected, long actual) {
+        return repair(REPAIR_LIKES, postId, expected, actual);
+    }
+
+    public boolean repairComments(Long postId, long expected, long actual) {
+        return repair(REPAIR_COMMENTS, postId, expected, actual);
+    }
+
+    private boolean repair(String sql, Long postId, long expected, long actual) {
+        if (jdbcTemplate.update(sql, actual, postId, expected) == 0) {
+            return false;
+        }
+        evict(List.of(postId));
+        return true;
+    }
+
+    private void evict(Collection<Long> postIds) {
+        Cache cache = entityManagerFactory.getCache();
+        postIds.forEach(id -> cache.evict(Post.class, id));
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            List<Long> ids = List.copyOf(postIds);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    ids.forEach(id -> cache.evict(Post.class, id));
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.server.service.post;
+
+import com.example.server.DTO.post.ContentBlockDTO;
+import com.example.server.DTO.post.PostDTO;
+import com.example.server.model.media.ImageDerivative;
+import com.example.server.model.post.ContentBlock;
+import com.example.server.model.post.ContentType;
+import com.example.server.model.post.Post;
+import com.example.server.model.user.User;
+import com.example.server.repository.media.ImageDerivativeRepository;
+import com.example.server.repository.post.ContentBlockRepository;
+import com.example.server.repository.post.LikeRepository;
+import jakarta.annotation.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Builds {@link PostDTO}s for a batch of posts with a fixed number of queries:
+ * content blocks and (for a viewer) the liked set are each fetched once for the
+ * whole batch and stitched together in memory, as are image derivatives when the batch
+ * has images. Authors are expected to be fetched together with the posts, and
+ * like/comment counts come from the post row itself. When likes are buffered, toggles
+ * not yet flushed are overlaid from memory so the feed agrees with the like endpoints.
+ */
+@Component
+public class PostFeedAssembler {
+
+    private final ContentBlockRepository contentBlockRepository;
+    private final LikeRepository likeRepository;
+    private final ImageDerivativeRepository imageDerivativeRepository;
+    // Present only when posts.likes.mode=buffered
+    @Nullable
+    private final LikeBuffer likeBuffer;
+
+    public PostFeedAssembler(ContentBlockRepository contentBlockRepository,
+                             LikeRepository likeRepository,
+                             ImageDerivativeRepository imageDerivativeRepository,
+                             @Nullable LikeBuffer likeBuffer) {
+        this.contentBlockRepository = contentBlockRepository;
+        this.likeRepository = likeRepository;
+        this.imageDerivativeRepository = imageDerivativeRepository;
+        this.likeBuffer = likeBuffer;
+    }
+
+    public List<PostDTO> assemble(List<Post> posts, @Nullable Long viewerId) {
+        if (posts.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        List<Long> postIds = posts.stream().map(Post::getId).toList();
+
+        Map<Long, List<ContentBlockDTO>> blocksByPost = new HashMap<>();
+        List<ContentBlockDTO> images = new ArrayList<>();
+        for (ContentBlock block : contentBlockRepository.findByPostIdIn(postIds)) {
+            ContentBlockDTO dto = mapToContentBlockDTO(block);
+            blocksByPost.computeIfAbsent(block.getPost().getId(), id -> new ArrayList<>()).add(dto);
+            if (block.getType() == ContentType.IMAGE && block.getUrl() != null) {
+                images.add(dto);
+            }
+        }
+        attachDerivatives(images);
+
+        Set<Long> likedPostIds = viewerId != null
+                ? new HashSet<>(likeRepository.findLikedPostIds(viewerId, postIds))
+                : Collections.emptySet();
+        if (viewerId != null && likeBuffer != null) {
+            for (Long postId : postIds) {
+                Boolean buffered = likeBuffer.bufferedState(postId, viewerId);
+                if (buffered != null) {
+                    if (buffered) {
+                        likedPostIds.add(postId);
+                    } else {
+                        likedPostIds.remove(postId);
+                    }
+                }
+            }
+        }
+
+        List<PostDTO> result = new ArrayList<>(posts.size());
+        for (Post post : posts) {
+            PostDTO dto = new PostDTO();
+            User author = post.getUser();
+            dto.setId(post.getId());
+            dto.setUserId(author.getId());
+            dto.setTitle(post.getTitle());
+            dto.setContentBlocks(blocksByPost.getOrDefault(post.getId(), new ArrayList<>()));
+            dto.setCreatedAt(post.getCreatedAt());
+            dto.setUpdatedAt(post.getUpdatedAt());
+            dto.setPublished(post.isPublished());
+            dto.setFullName(author.getFullName());
+            dto.setUsername(author.getUsername());
+            dto.setLiked(likedPostIds.contains(post.getId()));
+            dto.setLikeCount(post.getLikeCount() + (likeBuffer != null ? likeBuffer.pendingDelta(post.getId()) : 0));
+            dto.setCommentCount(post.getCommentCount());
+            result.add(dto);
+        }
+        return result;
+    }
+
+    public PostDTO assemble(Post post, @Nullable Long viewerId) {
+        return assemble(List.of(post), viewerId).get(0);
+    }
+
+    private void attachDerivatives(List<ContentBlockDTO> images) {
+        if (images.isEmpty()) {
+            return;
+        }
+        Set<String> urls = images.stream().map(ContentBlockDTO::getUrl).collect(Collectors.toSet());
+        Map<String, ImageDerivative> byUrl = new HashMap<>();
+        for (ImageDerivative derivative : imageDerivativeRepository.findBySourceUrlIn(urls)) {
+            byUrl.put(derivative.getSourceUrl(), derivative);
+        }
+        for (ContentBlockDTO image : images) {
+            ImageDerivative derivative = byUrl.get(image.getUrl());
+            if (derivative == null) {
+                continue; // not generated yet, or uploaded before derivatives existed
+            }
+            image.setPlaceholder(derivative.getPlaceholder());
+            if (!derivative.getVariants().isEmpty()) {
+                image.setSrcset(derivative.getVariants().stream()
+                        .map(variant -> variant.getUrl() + " " + variant.getWidth() + "w")
+                        .collect(Collectors.joining(", ")));
+            }
+        }
+    }
+
+    ContentBlockDTO mapToContentBlockDTO(ContentBlock block) {
+        ContentBlockDTO dto = new ContentBlockDTO();
+        dto.setId(block.getId());
+        dto.setType(block.getType());
+        dto.setContent(block.getContent());
+        dto.setUrl(block.getUrl());
+        dto.setVideoDuration(block.getVideoDuration());
+        dto.setPosition(block.getPosition());
+        return dto;
+    }
+}
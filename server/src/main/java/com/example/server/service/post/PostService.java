@@ -3,6 +3,7 @@ package com.example.server.service.post;
 import com.example.server.DTO.post.CommentResponseDTO;
 import com.example.server.DTO.post.PostCreateDTO;
 import com.example.server.DTO.post.PostDTO;
+import com.example.server.DTO.post.PostPageDTO;
 import com.example.server.model.post.Comment;
 import jakarta.annotation.Nullable;
 import org.springframework.http.ResponseEntity;
@@ -13,6 +14,7 @@ public interface PostService {
     PostDTO createPost(PostCreateDTO postCreateDTO,boolean draft);
     PostDTO getPostById(Long id);
     List<PostDTO> getAllPublishedPosts(@Nullable Long userId);
+    PostPageDTO getPublishedPostsPage(@Nullable String after, int limit, @Nullable Long userId);
     List<PostDTO> getAllDraftPosts(@Nullable Long userId);
     List<PostDTO> getPostsByUserId(Long userId);
     List<PostDTO> getAllUserPublishedPosts(Long userId);
@@ -22,6 +24,7 @@ public interface PostService {
     long getLikeCount(Long postId);
     Comment addComment(Long postId, Long userId, String content);
     List<CommentResponseDTO> getComments(Long postId);
+    List<CommentResponseDTO> getComments(Long postId, int page, int size, int maxDepth);
     Comment replyToComment(Long postId, Long parentCommentId, Long userId, String content);
     void deleteComment(Long commentId);
     void deleteReply(Long replyId);
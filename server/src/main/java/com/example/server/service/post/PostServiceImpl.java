@@ -3,7 +3,9 @@ package com.example.server.service.post;
 import com.example.server.DTO.post.CommentResponseDTO;
 import com.example.server.DTO.post.ContentBlockDTO;
 import com.example.server.DTO.post.PostCreateDTO;
+import com.example.server.DTO.post.FeedCursor;
 import com.example.server.DTO.post.PostDTO;
+import com.example.server.DTO.post.PostPageDTO;
 import com.example.server.model.post.Comment;
 import com.example.server.model.post.ContentBlock;
 import com.example.server.model.post.Like;
@@ -13,23 +15,34 @@ import com.example.server.repository.post.CommentRepository;
 import com.example.server.repository.post.LikeRepository;
 import com.example.server.repository.post.PostRepository;
 import com.example.server.repository.user.UserRepository;
+import com.example.server.service.media.MediaService;
+import com.example.server.service.search.SearchIndexer;
+import com.example.server.service.timeline.TimelineService;
 import jakarta.annotation.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
 public class PostServiceImpl implements PostService {
 
     private static final Logger logger = LoggerFactory.getLogger(PostServiceImpl.class);
+    private static final int MAX_PAGE_SIZE = 100;
 
     @Autowired
     private PostRepository postRepository;
@@ -43,6 +56,28 @@ public class PostServiceImpl implements PostService {
     @Autowired
     private CommentRepository commentRepository;
 
+    @Autowired
+    private PostFeedAssembler postFeedAssembler;
+
+    @Autowired
+    private CommentTreeLoader commentTreeLoader;
+
+    @Autowired
+    private PostCounters postCounters;
+
+    @Autowired
+    private TimelineService timelineService;
+
+    @Autowired
+    private SearchIndexer searchIndexer;
+
+    @Autowired
+    private MediaService mediaService;
+
+    // Present only when posts.likes.mode=buffered
+    @Autowired(required = false)
+    private LikeBuffer likeBuffer;
+
     @Override
     @Transactional
     public PostDTO createPost(PostCreateDTO postCreateDTO, boolean draft) {
@@ -70,7 +105,12 @@ public class PostServiceImpl implements PostService {
         post.setContentBlocks(contentBlocks);
 
         Post savedPost = postRepository.save(post);
+        mediaService.retain(blockUrls(savedPost));
         logger.info("Post saved with ID: {}, isPublished: {}", savedPost.getId(), savedPost.isPublished());
+        searchIndexer.indexPost(savedPost);
+        if (savedPost.isPublished()) {
+            timelineService.onPostPublished(savedPost.getId(), user.getId(), savedPost.getCreatedAt());
+        }
         return mapToPostDTO(savedPost, null);
     }
 
@@ -85,43 +125,55 @@ public class PostServiceImpl implements PostService {
     @Override
     @Transactional(readOnly = true)
     public List<PostDTO> getAllPublishedPosts(@Nullable Long userId) {
-        if(userId != null) {
-            return postRepository.findByIsPublishedTrue().stream()
-                    .map(post -> mapToPostDTO(post, userId))
-                    .collect(Collectors.toList());
+        return postFeedAssembler.assemble(postRepository.findByIsPublishedTrue(), userId);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public PostPageDTO getPublishedPostsPage(@Nullable String after, int limit, @Nullable Long userId) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        // Fetch one extra row to know whether another page exists
+        Limit fetchLimit = Limit.of(pageSize + 1);
+        List<Post> posts;
+        if (after == null || after.isBlank()) {
+            posts = postRepository.findPublishedFeed(fetchLimit);
+        } else {
+            FeedCursor cursor = FeedCursor.parse(after);
+            posts = postRepository.findPublishedFeedAfter(cursor.getCreatedAt(), cursor.getId(), fetchLimit);
         }
-        return postRepository.findByIsPublishedTrue().stream()
-                .map(post -> mapToPostDTO(post, null))
-                .collect(Collectors.toList());
+
+        String nextCursor = null;
+        if (posts.size() > pageSize) {
+            posts = posts.subList(0, pageSize);
+            Post last = posts.get(pageSize - 1);
+            nextCursor = new FeedCursor(last.getCreatedAt(), last.getId()).toString();
+        }
+        return new PostPageDTO(postFeedAssembler.assemble(posts, userId), nextCursor);
     }
 
     public List<PostDTO> getAllUserPublishedPosts(Long userId) {
-        return postRepository.findByIsPublishedFalse().stream()
+        List<Post> posts = postRepository.findByIsPublishedFalse().stream()
                 .filter(post -> post.getUser().getId().equals(userId))
-                .map(post -> mapToPostDTO(post, userId))
                 .collect(Collectors.toList());
+        return postFeedAssembler.assemble(posts, userId);
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<PostDTO> getAllDraftPosts(@Nullable Long userId) {
         if(userId != null) {
-            return postRepository.findByIsPublishedFalse().stream()
+            List<Post> posts = postRepository.findByIsPublishedFalse().stream()
                     .filter(post -> post.getUser().getId().equals(userId))
-                    .map(post -> mapToPostDTO(post, userId))
                     .collect(Collectors.toList());
+            return postFeedAssembler.assemble(posts, userId);
         }
-        return postRepository.findByIsPublishedFalse().stream()
-                .map(post -> mapToPostDTO(post, null))
-                .collect(Collectors.toList());
+        return postFeedAssembler.assemble(postRepository.findByIsPublishedFalse(), null);
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<PostDTO> getPostsByUserId(Long userId) {
-        return postRepository.findByUserId(userId).stream()
-                .map(post -> mapToPostDTO(post, null))
-                .collect(Collectors.toList());
+        return postFeedAssembler.assemble(postRepository.findByUserId(userId), null);
     }
 
     @Override
@@ -133,16 +185,19 @@ public class PostServiceImpl implements PostService {
         User user = userRepository.findById(postCreateDTO.getUserId())
                 .orElseThrow(() -> new IllegalArgumentException("User not found with ID: " + postCreateDTO.getUserId()));
 
+        boolean wasPublished = post.isPublished();
+        List<String> previousUrls = blockUrls(post);
         post.setTitle(postCreateDTO.getTitle());
         post.setPublished(postCreateDTO.isPublished());
-        post.getContentBlocks().clear();
-        List<ContentBlock> contentBlocks = postCreateDTO.getContentBlocks().stream()
-                .map(dto -> mapToContentBlock(dto, post))
-                .collect(Collectors.toList());
-        post.setContentBlocks(contentBlocks);
+        syncContentBlocks(post, postCreateDTO.getContentBlocks());
 
         Post updatedPost = postRepository.save(post);
+        mediaService.replace(previousUrls, blockUrls(updatedPost));
         logger.info("Post updated with ID: {}", updatedPost.getId());
+        searchIndexer.indexPost(updatedPost);
+        if (!wasPublished && updatedPost.isPublished()) {
+            timelineService.onPostPublished(updatedPost.getId(), updatedPost.getUser().getId(), updatedPost.getCreatedAt());
+        }
         return mapToPostDTO(updatedPost, null);
     }
 
@@ -151,68 +206,85 @@ public class PostServiceImpl implements PostService {
     public void deletePost(Long id) {
         Post post = postRepository.findById(id)
                 .orElseThrow(() -> new IllegalArgumentException("Post not found with ID: " + id));
+        mediaService.release(blockUrls(post));
         postRepository.delete(post);
+        searchIndexer.removePost(id);
         logger.info("Post deleted with ID: {}", id);
     }
 
-    private PostDTO mapToPostDTO(Post post, @Nullable Long userId) {
-        PostDTO dto = new PostDTO();
-        dto.setId(post.getId());
-        dto.setUserId(post.getUser().getId());
-        dto.setTitle(post.getTitle());
-        dto.setContentBlocks(post.getContentBlocks().stream()
-                .map(this::mapToContentBlockDTO)
-                .collect(Collectors.toList()));
-        dto.setCreatedAt(post.getCreatedAt());
-        dto.setUpdatedAt(post.getUpdatedAt());
-        dto.setPublished(post.isPublished());
-        dto.setFullName(post.getUser().getFullName());
-        dto.setUsername(post.getUser().getUsername());
-        if(userId != null) {
-            dto.setLiked(likeRepository.existsByPostIdAndUserId(post.getId(), userId));
-        } else {
-            dto.setLiked(false);
-        }
-        dto.setLikeCount(likeRepository.countByPostId(post.getId()));
-        dto.setCommentCount(commentRepository.countByPostId(post.getId()));
-        return dto;
+    private static List<String> blockUrls(Post post) {
+        return post.getContentBlocks().stream()
+                .map(ContentBlock::getUrl)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
     }
 
-    private ContentBlockDTO mapToContentBlockDTO(ContentBlock block) {
-        ContentBlockDTO dto = new ContentBlockDTO();
-        dto.setId(block.getId());
-        dto.setType(block.getType());
-        dto.setContent(block.getContent());
-        dto.setUrl(block.getUrl());
-        dto.setVideoDuration(block.getVideoDuration());
-        dto.setPosition(block.getPosition());
-        return dto;
+    private PostDTO mapToPostDTO(Post post, @Nullable Long userId) {
+        return postFeedAssembler.assemble(post, userId);
     }
 
     private ContentBlock mapToContentBlock(ContentBlockDTO dto, Post post) {
         ContentBlock block = new ContentBlock();
         block.setPost(post);
+        copyToContentBlock(dto, block);
+        return block;
+    }
+
+    private void copyToContentBlock(ContentBlockDTO dto, ContentBlock block) {
         block.setType(dto.getType());
         block.setContent(dto.getContent());
         block.setUrl(dto.getUrl());
         block.setVideoDuration(dto.getVideoDuration());
         block.setPosition(dto.getPosition());
-        return block;
     }
 
+    // Diffs blocks by position: unchanged blocks cost nothing (dirty checking skips them),
+    // changed ones get an UPDATE, and only added/removed positions are inserted/deleted
+    private void syncContentBlocks(Post post, List<ContentBlockDTO> dtos) {
+        Map<Integer, ContentBlock> existing = new HashMap<>();
+        for (ContentBlock block : post.getContentBlocks()) {
+            existing.putIfAbsent(block.getPosition(), block);
+        }
+
+        // Identity set: ContentBlock's generated equals/hashCode walk the whole post graph
+        Set<ContentBlock> kept = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<ContentBlock> added = new ArrayList<>();
+        for (ContentBlockDTO dto : dtos) {
+            ContentBlock block = existing.remove(dto.getPosition());
+            if (block == null) {
+                block = mapToContentBlock(dto, post);
+                added.add(block);
+            } else {
+                copyToContentBlock(dto, block);
+            }
+            kept.add(block);
+        }
+
+        post.getContentBlocks().removeIf(block -> !kept.contains(block));
+        post.getContentBlocks().addAll(added);
+        logger.debug("Post {} content blocks: {} kept, {} added", post.getId(), kept.size() - added.size(), added.size());
+    }
+
+    @Transactional
     public ResponseEntity<String> likePost(Long postId, Long userId) {
+        if (likeBuffer != null) {
+            return ResponseEntity.ok(likeBuffer.toggle(postId, userId) ? "Post liked" : "Post Unliked");
+        }
         if (likeRepository.existsByPostIdAndUserId(postId, userId)) {
             Like existingLike = likeRepository.findByPostIdAndUserId(postId, userId);
             likeRepository.delete(existingLike);
+            postCounters.adjustLikes(postId, -1);
             return ResponseEntity.ok("Post Unliked");
         }
         Post post = postRepository.findById(postId).orElseThrow();
         User user = userRepository.findById(userId).orElseThrow();
         Like like = new Like(null, post, user, null);
         likeRepository.save(like);
+        postCounters.adjustLikes(postId, 1);
         return ResponseEntity.ok("Post liked");
     }
 
+    @Transactional
     public Comment addComment(Long postId, Long userId, String content) {
         Post post = postRepository.findById(postId).orElseThrow();
         User user = userRepository.findById(userId).orElseThrow();
@@ -225,22 +297,28 @@ public class PostServiceImpl implements PostService {
                 new ArrayList<>(),      // empty replies list
                 LocalDateTime.now()
         );
-        return commentRepository.save(comment);
+        Comment saved = commentRepository.save(comment);
+        postCounters.adjustComments(postId, 1);
+        return saved;
     }
 
+    @Transactional(readOnly = true)
     public List<CommentResponseDTO> getComments(Long postId) {
-        List<Comment> comments = commentRepository.findByPostId(postId);
+        return commentTreeLoader.loadAll(postId);
+    }
 
-        // Convert list of Comment entities to list of CommentResponseDTOs
-        return comments.stream()
-                .map(this::toDto)
-                .collect(Collectors.toList());
+    @Transactional(readOnly = true)
+    public List<CommentResponseDTO> getComments(Long postId, int page, int size, int maxDepth) {
+        return commentTreeLoader.load(postId, Math.max(page, 0), Math.max(size, 1), Math.max(maxDepth, 0));
     }
 
+    @Transactional(readOnly = true)
     public long getLikeCount(Long postId) {
-        return likeRepository.countByPostId(postId);
+        long persisted = postRepository.findLikeCountById(postId).orElse(0L);
+        return likeBuffer != null ? persisted + likeBuffer.pendingDelta(postId) : persisted;
     }
 
+    @Transactional
     public Comment replyToComment(Long postId, Long parentCommentId, Long userId, String content) {
         Post post = postRepository.findById(postId).orElseThrow();
         Comment parent = commentRepository.findById(parentCommentId).orElseThrow();
@@ -260,29 +338,17 @@ public class PostServiceImpl implements PostService {
         reply.setPost(post);
         reply.setUser(user);
         reply.setParent(parent);
-        return commentRepository.save(reply);
+        Comment saved = commentRepository.save(reply);
+        postCounters.adjustComments(postId, 1);
+        return saved;
     }
 
 
-    private CommentResponseDTO toDto(Comment comment) {
-        CommentResponseDTO dto = new CommentResponseDTO();
-        dto.setId(comment.getId());
-        dto.setContent(comment.getContent());
-        dto.setAuthor(comment.getUser().getUsername());
-        dto.setCreatedAt(comment.getCreatedAt());
-
-        List<CommentResponseDTO> replies = comment.getReplies()
-                .stream()
-                .map(this::toDto)
-                .collect(Collectors.toList());
-
-        dto.setReplies(replies);
-        return dto;
-    }
-
+    @Transactional
     public void deleteComment(Long commentId) {
         Comment comment = commentRepository.findById(commentId)
                 .orElseThrow(() -> new IllegalArgumentException("Comment not found with ID: " + commentId));
+        postCounters.adjustComments(comment.getPost().getId(), -countThread(comment));
 
         comment.getReplies().forEach(reply -> commentRepository.delete(reply));
 
@@ -290,11 +356,22 @@ public class PostServiceImpl implements PostService {
         logger.info("Comment deleted with ID: {}", commentId);
     }
 
+    @Transactional
     public void deleteReply(Long replyId) {
         Comment reply = commentRepository.findById(replyId)
                 .orElseThrow(() -> new IllegalArgumentException("Reply not found with ID: " + replyId));
+        postCounters.adjustComments(reply.getPost().getId(), -countThread(reply));
 
         commentRepository.delete(reply);
         logger.info("Reply deleted with ID: {}", replyId);
     }
+
+    // A comment plus all of its nested replies, which are removed with it by cascade
+    private long countThread(Comment comment) {
+        long total = 1;
+        for (Comment reply : comment.getReplies()) {
+            total += countThread(reply);
+        }
+        return total;
+    }
 }
\ No newline at end of file
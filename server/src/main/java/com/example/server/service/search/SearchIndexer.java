@@ -0,0 +1,178 @@
+package com.example.server.service.search;
+
+import com.example.server.model.plan.Plan;
+import com.example.server.model.post.ContentBlock;
+import com.example.server.model.post.ContentType;
+import com.example.server.model.post.Post;
+import com.example.server.repository.plan.PlanRepository;
+import com.example.server.repository.post.ContentBlockRepository;
+import com.example.server.repository.post.PostRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Maintains the {@code search_documents} full-text index: one row per published post and
+ * shared plan, with a weighted {@code tsvector} (title A, body B, description C) under a
+ * GIN index. Write paths call in with the entity they just saved; the row is written on the
+ * caller's transaction, so it commits or rolls back together with the change.
+ */
+@Component
+public class SearchIndexer implements InitializingBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(SearchIndexer.class);
+
+    public static final String TYPE_POST = "POST";
+    public static final String TYPE_PLAN = "PLAN";
+
+    private static final Set<ContentType> TEXT_BLOCKS = Set.of(ContentType.PARAGRAPH, ContentType.SUBHEADING, ContentType.CODE);
+    private static final int SNIPPET_LENGTH = 200;
+    private static final int BACKFILL_BATCH = 200;
+
+    private static final String CREATE_TABLE =
+            "CREATE TABLE IF NOT EXISTS search_documents (" +
+            "doc_type varchar(16) NOT NULL, " +
+            "doc_id varchar(64) NOT NULL, " +
+            "title text, " +
+            "snippet text, " +
+            "created_at timestamp, " +
+            "document tsvector NOT NULL, " +
+            "PRIMARY KEY (doc_type, doc_id))";
+    private static final String CREATE_INDEX =
+            "CREATE INDEX IF NOT EXISTS idx_search_documents_document ON search_documents USING GIN (document)";
+
+    private static final String UPSERT =
+            "INSERT INTO search_documents (doc_type, doc_id, title, snippet, created_at, document) " +
+            "VALUES (?, ?, ?, ?, ?, setweight(to_tsvector('english', ?), 'A') " +
+            "|| setweight(to_tsvector('english', ?), 'B') || setweight(to_tsvector('english', ?), 'C')) " +
+            "ON CONFLICT (doc_type, doc_id) DO UPDATE SET title = EXCLUDED.title, snippet = EXCLUDED.snippet, " +
+            "created_at = EXCLUDED.created_at, document = EXCLUDED.document";
+    private static final String DELETE = "DELETE FROM search_documents WHERE doc_type = ? AND doc_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final PostRepository postRepository;
+    private final ContentBlockRepository contentBlockRepository;
+    private final PlanRepository planRepository;
+
+    public SearchIndexer(JdbcTemplate jdbcTemplate,
+                         TransactionTemplate transactionTemplate,
+                         PostRepository postRepository,
+                         ContentBlockRepository contentBlockRepository,
+                         PlanRepository planRepository) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.postRepository = postRepository;
+        this.contentBlockRepository = contentBlockRepository;
+        this.planRepository = planRepository;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        // tsvector columns and GIN indexes are outside what ddl-auto can create
+        jdbcTemplate.execute(CREATE_TABLE);
+        jdbcTemplate.execute(CREATE_INDEX);
+    }
+
+    public void indexPost(Post post) {
+        indexPost(post, post.getContentBlocks());
+    }
+
+    public void indexPost(Post post, List<ContentBlock> blocks) {
+        String id = String.valueOf(post.getId());
+        if (!post.isPublished()) {
+            remove(TYPE_POST, id);
+            return;
+        }
+        String body = blocks.stream()
+                .filter(block -> TEXT_BLOCKS.contains(block.getType()) && block.getContent() != null)
+                .sorted((a, b) -> Integer.compare(a.getPosition(), b.getPosition()))
+                .map(ContentBlock::getContent)
+                .collect(Collectors.joining("\n"));
+        upsert(TYPE_POST, id, post.getTitle(), body, "", post.getCreatedAt());
+    }
+
+    public void indexPlan(Plan plan) {
+        if (!plan.isShared()) {
+            remove(TYPE_PLAN, plan.getId());
+            return;
+        }
+        String topics = plan.getTopics() == null ? "" : String.join(" ", plan.getTopics());
+        String description = plan.getDescription() == null ? "" : plan.getDescription();
+        upsert(TYPE_PLAN, plan.getId(), plan.getTitle(), topics, description, plan.getCreatedAt());
+    }
+
+    public void removePost(Long postId) {
+        remove(TYPE_POST, String.valueOf(postId));
+    }
+
+    public void removePlan(String planId) {
+        remove(TYPE_PLAN, planId);
+    }
+
+    // Fills an empty index from existing content, e.g. on the first start after search was added
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillIfEmpty() {
+        Boolean empty = jdbcTemplate.queryForObject("SELECT NOT EXISTS (SELECT 1 FROM search_documents)", Boolean.class);
+        if (!Boolean.TRUE.equals(empty)) {
+            return;
+        }
+        long start = System.nanoTime();
+        int posts = 0;
+        List<Post> page = postRepository.findPublishedFeed(Limit.of(BACKFILL_BATCH));
+        while (!page.isEmpty()) {
+            List<Post> batch = page;
+            transactionTemplate.executeWithoutResult(status -> indexPostBatch(batch));
+            posts += batch.size();
+            Post last = batch.get(batch.size() - 1);
+            page = batch.size() < BACKFILL_BATCH ? List.of()
+                    : postRepository.findPublishedFeedAfter(last.getCreatedAt(), last.getId(), Limit.of(BACKFILL_BATCH));
+        }
+        Integer plans = transactionTemplate.execute(status -> {
+            List<Plan> shared = planRepository.findBySharedTrue();
+            shared.forEach(this::indexPlan);
+            return shared.size();
+        });
+        logger.info("Search index backfilled with {} posts and {} plans in {} ms",
+                posts, plans, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private void indexPostBatch(List<Post> posts) {
+        Map<Long, List<ContentBlock>> blocksByPost = new HashMap<>();
+        List<Long> ids = posts.stream().map(Post::getId).toList();
+        for (ContentBlock block : contentBlockRepository.findByPostIdIn(ids)) {
+            blocksByPost.computeIfAbsent(block.getPost().getId(), id -> new ArrayList<>()).add(block);
+        }
+        for (Post post : posts) {
+            indexPost(post, blocksByPost.getOrDefault(post.getId(), List.of()));
+        }
+    }
+
+    private void upsert(String type, String id, String title, String body, String extra, LocalDateTime createdAt) {
+        String safeTitle = title == null ? "" : title;
+        String snippetSource = body.isEmpty() ? extra : body;
+        String snippet = snippetSource.length() > SNIPPET_LENGTH ? snippetSource.substring(0, SNIPPET_LENGTH) : snippetSource;
+        jdbcTemplate.update(UPSERT, type, id, safeTitle, snippet,
+                createdAt != null ? Timestamp.valueOf(createdAt) : null,
+                safeTitle, body, extra);
+    }
+
+    private void remove(String type, String id) {
+        jdbcTemplate.update(DELETE, type, id);
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.server.service.search;
+
+import com.example.server.DTO.search.SearchPageDTO;
+import jakarta.annotation.Nullable;
+
+public interface SearchService {
+    SearchPageDTO search(String query, @Nullable String type, int page, int size);
+}
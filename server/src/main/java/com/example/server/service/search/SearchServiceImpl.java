@@ -0,0 +1,79 @@
+package com.example.server.service.search;
+
+import com.example.server.DTO.search.SearchPageDTO;
+import com.example.server.DTO.search.SearchResultDTO;
+import jakarta.annotation.Nullable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Ranked full-text queries over the {@code search_documents} index maintained by {@link SearchIndexer}.
+ */
+@Service
+public class SearchServiceImpl implements SearchService {
+
+    private static final int MAX_PAGE_SIZE = 50;
+    private static final int MAX_QUERY_LENGTH = 200;
+    private static final Set<String> TYPES = Set.of(SearchIndexer.TYPE_POST, SearchIndexer.TYPE_PLAN);
+
+    // websearch_to_tsquery accepts free user input (quotes, OR, -term) without syntax errors
+    private static final String SEARCH =
+            "SELECT d.doc_type, d.doc_id, d.title, d.snippet, d.created_at, ts_rank_cd(d.document, q) AS rank " +
+            "FROM search_documents d, websearch_to_tsquery('english', ?) q " +
+            "WHERE d.document @@ q AND (CAST(? AS varchar) IS NULL OR d.doc_type = ?) " +
+            "ORDER BY rank DESC, d.created_at DESC, d.doc_id " +
+            "LIMIT ? OFFSET ?";
+
+    private static final RowMapper<SearchResultDTO> RESULT_MAPPER = (rs, rowNum) -> {
+        Timestamp createdAt = rs.getTimestamp("created_at");
+        return new SearchResultDTO(
+                rs.getString("doc_type"),
+                rs.getString("doc_id"),
+                rs.getString("title"),
+                rs.getString("snippet"),
+                createdAt != null ? createdAt.toLocalDateTime() : null,
+                rs.getDouble("rank"));
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public SearchServiceImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public SearchPageDTO search(String query, @Nullable String type, int page, int size) {
+        if (query == null || query.isBlank()) {
+            throw new IllegalArgumentException("Search query must not be empty");
+        }
+        if (query.length() > MAX_QUERY_LENGTH) {
+            throw new IllegalArgumentException("Search query is too long");
+        }
+        String docType = null;
+        if (type != null && !type.isBlank()) {
+            docType = type.toUpperCase(Locale.ROOT);
+            if (!TYPES.contains(docType)) {
+                throw new IllegalArgumentException("Unknown search type: " + type);
+            }
+        }
+        if (page < 0) {
+            throw new IllegalArgumentException("Page must not be negative");
+        }
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+
+        // Fetch one extra row to know whether another page exists
+        List<SearchResultDTO> results = jdbcTemplate.query(SEARCH, RESULT_MAPPER,
+                query, docType, docType, pageSize + 1, (long) page * pageSize);
+        boolean hasNext = results.size() > pageSize;
+        if (hasNext) {
+            results = results.subList(0, pageSize);
+        }
+        return new SearchPageDTO(results, page, pageSize, hasNext);
+    }
+}
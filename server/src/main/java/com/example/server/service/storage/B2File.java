@@ -0,0 +1,7 @@
+package com.example.server.service.storage;
+
+/**
+ * A file stored in the B2 bucket, as reported by the upload call.
+ */
+public record B2File(String fileId, String fileName, long size, String sha1) {
+}
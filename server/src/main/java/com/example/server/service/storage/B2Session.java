@@ -0,0 +1,9 @@
+package com.example.server.service.storage;
+
+import java.time.Instant;
+
+/**
+ * Result of {@code b2_authorize_account}: the API host and token for account-level calls.
+ */
+public record B2Session(String apiUrl, String authToken, String downloadUrl, Instant obtainedAt) {
+}
@@ -0,0 +1,64 @@
+package com.example.server.service.storage;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * {@link StorageBackend} on Backblaze B2, using the object key as the B2 file name.
+ */
+@Component
+@ConditionalOnProperty(name = "storage.backend", havingValue = "b2", matchIfMissing = true)
+public class B2StorageBackend implements StorageBackend {
+
+    private final B2StorageClient client;
+
+    public B2StorageBackend(B2StorageClient client) {
+        this.client = client;
+    }
+
+    @Override
+    public String put(String key, InputStreamSource source, long size, String contentType) throws IOException {
+        return client.upload(source, size, key, contentType).fileName();
+    }
+
+    @Override
+    public InputStream get(String key) throws IOException {
+        return client.download(key, 0, -1);
+    }
+
+    @Override
+    public InputStream getRange(String key, long offset, long length) throws IOException {
+        return client.download(key, offset, length);
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        client.deleteFile(key);
+    }
+
+    @Override
+    public DownloadAuthorization authorizePrefix(String prefix, Duration validFor) throws IOException {
+        Instant expiresAt = Instant.now().plus(validFor);
+        String token = client.getDownloadAuthorization(prefix, (int) validFor.toSeconds());
+        return new DownloadAuthorization(prefix, token, expiresAt);
+    }
+
+    @Override
+    public String signedUrl(String key, DownloadAuthorization authorization) throws IOException {
+        return String.format(
+                "%s/file/%s/%s?Authorization=%s",
+                client.session().downloadUrl(),
+                client.getBucketName(),
+                URLEncoder.encode(key, StandardCharsets.UTF_8),
+                URLEncoder.encode(authorization.token(), StandardCharsets.UTF_8)
+        );
+    }
+}
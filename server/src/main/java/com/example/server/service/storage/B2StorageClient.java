@@ -0,0 +1,423 @@
+package com.example.server.service.storage;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.stereotype.Component;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Client for the Backblaze B2 API.
+ * <p>
+ * All requests go through one keep-alive {@link HttpClient}. The account authorization is
+ * cached until shortly before its 24h expiry, and upload URLs are pooled: B2 allows each to
+ * carry one upload at a time, so a URL is taken from the pool for the duration of an upload
+ * and returned when it succeeds. A 401 drops the cached token and the call is retried.
+ * <p>
+ * Uploads stream from their source through a fixed-size buffer while the SHA-1 is computed,
+ * and the digest is sent as the trailing 40 bytes ({@code hex_digits_at_end}). Files above
+ * {@code storage.large-file-threshold} go through the large-file API in parts.
+ */
+@Component
+@ConditionalOnProperty(name = "storage.backend", havingValue = "b2", matchIfMissing = true)
+public class B2StorageClient {
+
+    private static final Logger logger = LoggerFactory.getLogger(B2StorageClient.class);
+
+    // Authorizations and upload tokens are valid for 24h; refresh well before that
+    private static final Duration TOKEN_LIFETIME = Duration.ofHours(23);
+    // B2 rejects parts smaller than this, except for the last one
+    private static final long MIN_PART_SIZE = 5L * 1024 * 1024;
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final ObjectMapper mapper;
+    private final HttpClient httpClient;
+    private final String authorizeUrl;
+    private final String keyId;
+    private final String appKey;
+    private final String bucketId;
+    private final String bucketName;
+    private final long largeFileThreshold;
+    private final long partSize;
+
+    private volatile B2Session session;
+    private final ReentrantLock authorizeLock = new ReentrantLock();
+    private final ConcurrentLinkedDeque<UploadTarget> uploadTargets = new ConcurrentLinkedDeque<>();
+
+    public B2StorageClient(ObjectMapper mapper,
+                           @Value("${storage.authorize-url:https://api.backblazeb2.com/b2api/v2/b2_authorize_account}") String authorizeUrl,
+                           @Value("${storage.key-id}") String keyId,
+                           @Value("${storage.app-key}") String appKey,
+                           @Value("${storage.bucket-id}") String bucketId,
+                           @Value("${storage.bucket-name}") String bucketName,
+                           @Value("${storage.large-file-threshold:104857600}") long largeFileThreshold,
+                           @Value("${storage.part-size:104857600}") long partSize,
+                           @Value("${storage.connect-timeout-ms:10000}") long connectTimeoutMs) {
+        this.mapper = mapper;
+        this.authorizeUrl = authorizeUrl;
+        this.keyId = keyId;
+        this.appKey = appKey;
+        this.bucketId = bucketId;
+        this.bucketName = bucketName;
+        this.partSize = Math.max(partSize, MIN_PART_SIZE);
+        // A large file needs at least two parts
+        this.largeFileThreshold = Math.max(largeFileThreshold, this.partSize);
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .build();
+    }
+
+    /**
+     * The cached account authorization, re-authorizing if it is missing or about to expire.
+     */
+    public B2Session session() throws IOException {
+        B2Session current = session;
+        if (current != null && !isExpired(current.obtainedAt())) {
+            return current;
+        }
+        authorizeLock.lock();
+        try {
+            current = session;
+            if (current == null || isExpired(current.obtainedAt())) {
+                current = authorize();
+                session = current;
+            }
+            return current;
+        } finally {
+            authorizeLock.unlock();
+        }
+    }
+
+    /**
+     * Uploads {@code size} bytes from {@code source}. The source is reopened if an attempt has to be retried.
+     */
+    public B2File upload(InputStreamSource source, long size, String fileName, String contentType) throws IOException {
+        if (size > largeFileThreshold) {
+            return uploadLargeFile(source, size, fileName, contentType);
+        }
+
+        IOException lastFailure = null;
+        for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+            UploadTarget target = acquireUploadTarget();
+            try (Sha1TrailerInputStream body = new Sha1TrailerInputStream(source.getInputStream(), size)) {
+                HttpRequest request = HttpRequest.newBuilder(URI.create(target.uploadUrl()))
+                        .header("Authorization", target.authToken())
+                        .header("X-Bz-File-Name", URLEncoder.encode(fileName, StandardCharsets.UTF_8))
+                        .header("Content-Type", contentType)
+                        .header("X-Bz-Content-Sha1", "hex_digits_at_end")
+                        .POST(streamingBody(body, size))
+                        .build();
+                JsonNode uploaded = send(request);
+                uploadTargets.push(target);
+                return new B2File(uploaded.get("fileId").asText(), uploaded.get("fileName").asText(), size, body.sha1());
+            } catch (B2Exception e) {
+                // Any failed upload URL is discarded; B2 asks clients to fetch a new one
+                if (!e.isRetryable()) {
+                    throw e;
+                }
+                lastFailure = e;
+            } catch (InterruptedIOException e) {
+                throw e;
+            } catch (IOException e) {
+                lastFailure = e;
+            }
+            logger.warn("Upload of {} failed on attempt {}: {}", fileName, attempt, lastFailure.getMessage());
+        }
+        throw lastFailure;
+    }
+
+    /**
+     * Returns a token that allows downloading files under {@code fileNamePrefix} for the given duration.
+     */
+    public String getDownloadAuthorization(String fileNamePrefix, int validForSeconds) throws IOException {
+        ObjectNode body = mapper.createObjectNode()
+                .put("bucketId", bucketId)
+                .put("fileNamePrefix", fileNamePrefix)
+                .put("validDurationInSeconds", validForSeconds);
+        return call("b2_get_download_authorization", body).get("authorizationToken").asText();
+    }
+
+    /**
+     * Streams a file, or the byte range {@code [offset, offset + length)} of it when {@code length >= 0}.
+     */
+    public InputStream download(String fileName, long offset, long length) throws IOException {
+        if (length == 0) {
+            // "bytes=N-(N-1)" is not a valid range, and there is nothing to fetch
+            return InputStream.nullInputStream();
+        }
+        for (int attempt = 1; ; attempt++) {
+            B2Session current = session();
+            HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(
+                            current.downloadUrl() + "/file/" + bucketName + "/" + URLEncoder.encode(fileName, StandardCharsets.UTF_8)))
+                    .header("Authorization", current.authToken())
+                    .GET();
+            if (length >= 0) {
+                builder.header("Range", "bytes=" + offset + "-" + (offset + length - 1));
+            }
+            HttpResponse<InputStream> response;
+            try {
+                response = httpClient.send(builder.build(), HttpResponse.BodyHandlers.ofInputStream());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted calling B2");
+            }
+            if (response.statusCode() < 400) {
+                return response.body();
+            }
+            String error;
+            try (InputStream body = response.body()) {
+                error = new String(body.readAllBytes(), StandardCharsets.UTF_8);
+            }
+            if (response.statusCode() == 401 && attempt == 1) {
+                invalidate(current);
+                continue;
+            }
+            if (response.statusCode() == 404) {
+                throw new FileNotFoundException(fileName);
+            }
+            throw new B2Exception(response.statusCode(), error);
+        }
+    }
+
+    /**
+     * Deletes every stored version of the file.
+     */
+    public void deleteFile(String fileName) throws IOException {
+        String startFileId = null;
+        while (true) {
+            ObjectNode list = mapper.createObjectNode()
+                    .put("bucketId", bucketId)
+                    .put("startFileName", fileName)
+                    .put("maxFileCount", 100);
+            if (startFileId != null) {
+                list.put("startFileId", startFileId);
+            }
+            JsonNode page = call("b2_list_file_versions", list);
+            for (JsonNode version : page.path("files")) {
+                if (!fileName.equals(version.get("fileName").asText())) {
+                    return; // listing is sorted by name, so the versions of this file come first
+                }
+                ObjectNode delete = mapper.createObjectNode()
+                        .put("fileName", fileName)
+                        .put("fileId", version.get("fileId").asText());
+                call("b2_delete_file_version", delete);
+            }
+            // The next page starts at the following version, which may belong to another file
+            JsonNode nextFileName = page.path("nextFileName");
+            if (!fileName.equals(nextFileName.asText(null)) || page.path("nextFileId").isNull()
+                    || page.path("nextFileId").isMissingNode()) {
+                return;
+            }
+            startFileId = page.get("nextFileId").asText();
+        }
+    }
+
+    public String getBucketName() {
+        return bucketName;
+    }
+
+    private B2File uploadLargeFile(InputStreamSource source, long size, String fileName, String contentType) throws IOException {
+        ObjectNode start = mapper.createObjectNode()
+                .put("bucketId", bucketId)
+                .put("fileName", fileName)
+                .put("contentType", contentType);
+        String fileId = call("b2_start_large_file", start).get("fileId").asText();
+        try {
+            UploadTarget partTarget = getUploadPartTarget(fileId);
+
+            // Parts are streamed one after another, so memory use does not grow with the file
+            List<String> partSha1s = new ArrayList<>();
+            long offset = 0;
+            for (int partNumber = 1; offset < size; partNumber++) {
+                long length = Math.min(partSize, size - offset);
+                for (int attempt = 1; ; attempt++) {
+                    try (InputStream in = source.getInputStream()) {
+                        in.skipNBytes(offset);
+                        Sha1TrailerInputStream body = new Sha1TrailerInputStream(in, length);
+                        HttpRequest request = HttpRequest.newBuilder(URI.create(partTarget.uploadUrl()))
+                                .header("Authorization", partTarget.authToken())
+                                .header("X-Bz-Part-Number", String.valueOf(partNumber))
+                                .header("X-Bz-Content-Sha1", "hex_digits_at_end")
+                                .POST(streamingBody(body, length))
+                                .build();
+                        send(request);
+                        partSha1s.add(body.sha1());
+                        break;
+                    } catch (B2Exception e) {
+                        if (!e.isRetryable() || attempt == MAX_ATTEMPTS) {
+                            throw e;
+                        }
+                        logger.warn("Part {} of {} failed on attempt {}: {}", partNumber, fileName, attempt, e.getMessage());
+                        partTarget = getUploadPartTarget(fileId);
+                    } catch (InterruptedIOException e) {
+                        throw e;
+                    } catch (IOException e) {
+                        // Dropped connections and timeouts, retried like the small-file path does
+                        if (attempt == MAX_ATTEMPTS) {
+                            throw e;
+                        }
+                        logger.warn("Part {} of {} failed on attempt {}: {}", partNumber, fileName, attempt, e.getMessage());
+                        partTarget = getUploadPartTarget(fileId);
+                    }
+                }
+                offset += length;
+            }
+
+            ObjectNode finish = mapper.createObjectNode().put("fileId", fileId);
+            ArrayNode shaArray = finish.putArray("partSha1Array");
+            partSha1s.forEach(shaArray::add);
+            JsonNode finished = call("b2_finish_large_file", finish);
+            logger.info("Uploaded large file {} ({} bytes, {} parts)", fileName, size, partSha1s.size());
+            // B2 reports no whole-file SHA-1 for large files
+            return new B2File(fileId, finished.get("fileName").asText(), size, null);
+        } catch (IOException | RuntimeException e) {
+            cancelLargeFile(fileId);
+            throw e;
+        }
+    }
+
+    private void cancelLargeFile(String fileId) {
+        try {
+            call("b2_cancel_large_file", mapper.createObjectNode().put("fileId", fileId));
+        } catch (IOException e) {
+            logger.warn("Could not cancel unfinished large file {}: {}", fileId, e.getMessage());
+        }
+    }
+
+    private UploadTarget acquireUploadTarget() throws IOException {
+        UploadTarget target;
+        while ((target = uploadTargets.poll()) != null) {
+            if (!isExpired(target.obtainedAt())) {
+                return target;
+            }
+        }
+        JsonNode json = call("b2_get_upload_url", mapper.createObjectNode().put("bucketId", bucketId));
+        return new UploadTarget(json.get("uploadUrl").asText(), json.get("authorizationToken").asText(), Instant.now());
+    }
+
+    private UploadTarget getUploadPartTarget(String fileId) throws IOException {
+        JsonNode json = call("b2_get_upload_part_url", mapper.createObjectNode().put("fileId", fileId));
+        return new UploadTarget(json.get("uploadUrl").asText(), json.get("authorizationToken").asText(), Instant.now());
+    }
+
+    // Account-level API call; re-authorizes once if the cached token has been revoked or expired
+    private JsonNode call(String operation, JsonNode body) throws IOException {
+        byte[] json = mapper.writeValueAsBytes(body);
+        for (int attempt = 1; ; attempt++) {
+            B2Session current = session();
+            HttpRequest request = HttpRequest.newBuilder(URI.create(current.apiUrl() + "/b2api/v2/" + operation))
+                    .header("Authorization", current.authToken())
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(json))
+                    .build();
+            try {
+                return send(request);
+            } catch (B2Exception e) {
+                if (e.getStatus() != 401 || attempt > 1) {
+                    throw e;
+                }
+                invalidate(current);
+            }
+        }
+    }
+
+    private B2Session authorize() throws IOException {
+        String credentials = Base64.getEncoder().encodeToString((keyId + ":" + appKey).getBytes(StandardCharsets.UTF_8));
+        HttpRequest request = HttpRequest.newBuilder(URI.create(authorizeUrl))
+                .header("Authorization", "Basic " + credentials)
+                .GET()
+                .build();
+        JsonNode json = send(request);
+        logger.info("Authorized B2 account session");
+        return new B2Session(
+                json.get("apiUrl").asText(),
+                json.get("authorizationToken").asText(),
+                json.get("downloadUrl").asText(),
+                Instant.now());
+    }
+
+    private void invalidate(B2Session stale) {
+        authorizeLock.lock();
+        try {
+            if (session == stale) {
+                session = null;
+            }
+        } finally {
+            authorizeLock.unlock();
+        }
+    }
+
+    private JsonNode send(HttpRequest request) throws IOException {
+        HttpResponse<byte[]> response;
+        try {
+            response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted calling B2");
+        }
+        if (response.statusCode() >= 400) {
+            throw new B2Exception(response.statusCode(), new String(response.body(), StandardCharsets.UTF_8));
+        }
+        return mapper.readTree(response.body());
+    }
+
+    // Fixed-length body read lazily from the stream, so B2 gets a Content-Length without buffering
+    private static HttpRequest.BodyPublisher streamingBody(Sha1TrailerInputStream body, long size) {
+        return HttpRequest.BodyPublishers.fromPublisher(
+                HttpRequest.BodyPublishers.ofInputStream(() -> body),
+                size + Sha1TrailerInputStream.TRAILER_LENGTH);
+    }
+
+    private static boolean isExpired(Instant obtainedAt) {
+        return obtainedAt.plus(TOKEN_LIFETIME).isBefore(Instant.now());
+    }
+
+    private record UploadTarget(String uploadUrl, String authToken, Instant obtainedAt) {
+    }
+
+    /**
+     * An error response from B2.
+     */
+    static class B2Exception extends IOException {
+
+        private final int status;
+
+        B2Exception(int status, String body) {
+            super("B2 request failed with status " + status + ": " + body);
+            this.status = status;
+        }
+
+        int getStatus() {
+            return status;
+        }
+
+        // Expired upload tokens and busy pods are fixed by fetching a new upload URL
+        boolean isRetryable() {
+            return status == 401 || status == 408 || status == 429 || status >= 500;
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.server.service.storage;
+
+import java.time.Instant;
+
+/**
+ * Permission to download any object whose key starts with {@code prefix}, until {@code expiresAt}.
+ */
+public record DownloadAuthorization(String prefix, String token, Instant expiresAt) {
+}
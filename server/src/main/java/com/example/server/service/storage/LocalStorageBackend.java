@@ -0,0 +1,200 @@
+package com.example.server.service.storage;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.UriUtils;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+
+/**
+ * {@link StorageBackend} on a local directory, for on-prem installs and load tests.
+ * Writes go through a {@link FileChannel} into a temp file that is moved into place once
+ * complete; downloads are served by {@code LocalFileController} with sendfile and Range
+ * support, behind HMAC-signed, expiring URLs.
+ */
+@Component
+@ConditionalOnProperty(name = "storage.backend", havingValue = "local")
+public class LocalStorageBackend implements StorageBackend {
+
+    private static final Logger logger = LoggerFactory.getLogger(LocalStorageBackend.class);
+    private static final String HMAC = "HmacSHA256";
+
+    private final Path root;
+    private final String baseUrl;
+    private final byte[] signingKey;
+
+    public LocalStorageBackend(@Value("${storage.local.root:data/storage}") String root,
+                               @Value("${storage.local.base-url:}") String baseUrl,
+                               @Value("${storage.local.signing-secret:}") String signingSecret) throws IOException {
+        this.root = Paths.get(root).toAbsolutePath().normalize();
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        Files.createDirectories(this.root);
+        if (signingSecret.isEmpty()) {
+            logger.warn("storage.local.signing-secret is not set; signed URLs will not survive a restart");
+            this.signingKey = new byte[32];
+            new SecureRandom().nextBytes(this.signingKey);
+        } else {
+            this.signingKey = signingSecret.getBytes(StandardCharsets.UTF_8);
+        }
+        logger.info("Local storage backend at {}", this.root);
+    }
+
+    @Override
+    public String put(String key, InputStreamSource source, long size, String contentType) throws IOException {
+        Path target = resolve(key);
+        Files.createDirectories(target.getParent());
+        Path tmp = Files.createTempFile(target.getParent(), ".upload-", ".tmp");
+        try (InputStream in = source.getInputStream();
+             FileChannel out = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+            // A file-backed source (spooled multipart) is copied channel to channel without user-space buffers
+            ReadableByteChannel src = in instanceof FileInputStream fis ? fis.getChannel() : Channels.newChannel(in);
+            long written = 0;
+            while (written < size) {
+                long n = out.transferFrom(src, written, size - written);
+                if (n <= 0) {
+                    throw new EOFException("Upload ended " + (size - written) + " bytes early");
+                }
+                written += n;
+            }
+            out.force(true);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return key;
+    }
+
+    @Override
+    public InputStream get(String key) throws IOException {
+        return Files.newInputStream(existing(key));
+    }
+
+    @Override
+    public InputStream getRange(String key, long offset, long length) throws IOException {
+        FileChannel channel = FileChannel.open(existing(key), StandardOpenOption.READ);
+        channel.position(offset);
+        InputStream in = Channels.newInputStream(channel);
+        return new InputStream() {
+            private long remaining = length;
+
+            @Override
+            public int read() throws IOException {
+                if (remaining <= 0) {
+                    return -1;
+                }
+                int b = in.read();
+                if (b >= 0) {
+                    remaining--;
+                }
+                return b;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                if (remaining <= 0) {
+                    return -1;
+                }
+                int n = in.read(b, off, (int) Math.min(len, remaining));
+                if (n > 0) {
+                    remaining -= n;
+                }
+                return n;
+            }
+
+            @Override
+            public void close() throws IOException {
+                in.close();
+            }
+        };
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        Files.deleteIfExists(resolve(key));
+    }
+
+    @Override
+    public DownloadAuthorization authorizePrefix(String prefix, Duration validFor) {
+        Instant expiresAt = Instant.now().plus(validFor);
+        return new DownloadAuthorization(prefix, sign(prefix, expiresAt.getEpochSecond()), expiresAt);
+    }
+
+    @Override
+    public String signedUrl(String key, DownloadAuthorization authorization) {
+        if (!key.startsWith(authorization.prefix())) {
+            throw new IllegalArgumentException("Key " + key + " is outside prefix " + authorization.prefix());
+        }
+        return baseUrl + "/api/files/" + UriUtils.encodePath(key, StandardCharsets.UTF_8)
+                + "?prefix=" + UriUtils.encodeQueryParam(authorization.prefix(), StandardCharsets.UTF_8)
+                + "&expires=" + authorization.expiresAt().getEpochSecond()
+                + "&signature=" + authorization.token();
+    }
+
+    /**
+     * Checks a signature produced by {@link #authorizePrefix} for a prefix of {@code key}.
+     */
+    public boolean verify(String key, String prefix, long expires, String signature) {
+        if (Instant.now().getEpochSecond() > expires || signature == null || !key.startsWith(prefix)) {
+            return false;
+        }
+        return MessageDigest.isEqual(
+                sign(prefix, expires).getBytes(StandardCharsets.US_ASCII),
+                signature.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * The file behind a key; rejects keys that would escape the storage root.
+     */
+    public Path resolve(String key) {
+        Path path = root.resolve(key).normalize();
+        if (!path.startsWith(root) || path.equals(root)) {
+            throw new IllegalArgumentException("Invalid storage key: " + key);
+        }
+        return path;
+    }
+
+    private Path existing(String key) throws FileNotFoundException {
+        Path path = resolve(key);
+        if (!Files.isRegularFile(path)) {
+            throw new FileNotFoundException(key);
+        }
+        return path;
+    }
+
+    private String sign(String prefix, long expires) {
+        try {
+            Mac mac = Mac.getInstance(HMAC);
+            mac.init(new SecretKeySpec(signingKey, HMAC));
+            byte[] digest = mac.doFinal((prefix + "\n" + expires).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Could not sign storage URL", e);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.server.service.storage;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Yields exactly {@code length} bytes of the source followed by their SHA-1 as 40 hex digits,
+ * the body layout B2 expects for {@code X-Bz-Content-Sha1: hex_digits_at_end}.
+ */
+class Sha1TrailerInputStream extends InputStream {
+
+    static final int TRAILER_LENGTH = 40;
+
+    private final InputStream source;
+    private final MessageDigest digest;
+    private long remaining;
+    private byte[] trailer;
+    private int trailerPos;
+
+    Sha1TrailerInputStream(InputStream source, long length) {
+        this.source = source;
+        this.remaining = length;
+        try {
+            this.digest = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 is not available", e);
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] one = new byte[1];
+        int n = read(one, 0, 1);
+        return n < 0 ? -1 : one[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (remaining > 0) {
+            int n = source.read(b, off, (int) Math.min(len, remaining));
+            if (n < 0) {
+                throw new EOFException("Upload ended " + remaining + " bytes early");
+            }
+            digest.update(b, off, n);
+            remaining -= n;
+            return n;
+        }
+        if (trailer == null) {
+            trailer = HexFormat.of().formatHex(digest.digest()).getBytes(StandardCharsets.US_ASCII);
+        }
+        if (trailerPos == trailer.length) {
+            return -1;
+        }
+        int n = Math.min(len, trailer.length - trailerPos);
+        System.arraycopy(trailer, trailerPos, b, off, n);
+        trailerPos += n;
+        return n;
+    }
+
+    /**
+     * The hex SHA-1 of the source bytes; only available once they have all been read.
+     */
+    String sha1() {
+        if (trailer == null) {
+            throw new IllegalStateException("Content not fully read");
+        }
+        return new String(trailer, StandardCharsets.US_ASCII);
+    }
+
+    @Override
+    public void close() throws IOException {
+        source.close();
+    }
+}
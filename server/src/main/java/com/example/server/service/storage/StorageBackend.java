@@ -0,0 +1,47 @@
+package com.example.server.service.storage;
+
+import org.springframework.core.io.InputStreamSource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+
+/**
+ * Object store for uploaded media. The implementation is chosen with {@code storage.backend}:
+ * {@code b2} (default) for Backblaze B2, or {@code local} for a directory on this node.
+ */
+public interface StorageBackend {
+
+    /**
+     * Stores {@code size} bytes from {@code source} under {@code key} and returns the key it was stored as.
+     * The source may be reopened if the write has to be retried.
+     */
+    String put(String key, InputStreamSource source, long size, String contentType) throws IOException;
+
+    InputStream get(String key) throws IOException;
+
+    /**
+     * Reads {@code length} bytes starting at {@code offset}.
+     */
+    InputStream getRange(String key, long offset, long length) throws IOException;
+
+    void delete(String key) throws IOException;
+
+    /**
+     * A URL that lets clients download the object directly for the given duration.
+     */
+    default String signUrl(String key, Duration validFor) throws IOException {
+        return signedUrl(key, authorizePrefix(key, validFor));
+    }
+
+    /**
+     * Authorizes downloads of every key under {@code prefix}, so many URLs can be signed
+     * with a single call to the store.
+     */
+    DownloadAuthorization authorizePrefix(String prefix, Duration validFor) throws IOException;
+
+    /**
+     * A direct download URL for {@code key}, which must fall under the authorization's prefix.
+     */
+    String signedUrl(String key, DownloadAuthorization authorization) throws IOException;
+}
@@ -0,0 +1,57 @@
+package com.example.server.service.timeline;
+
+import com.example.server.repository.post.PostRef;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Fixed-capacity ring of post references for one user's home timeline.
+ * Pushing past capacity overwrites the oldest entry. Also remembers which followees are
+ * too widely followed to fan out to, so the read path knows whose posts to pull.
+ */
+class HomeTimeline {
+
+    private final PostRef[] entries;
+    private final List<Long> heavyFollowees;
+    private final ReentrantLock lock = new ReentrantLock();
+    private int head; // next write position
+    private int size;
+
+    HomeTimeline(int capacity, List<Long> heavyFollowees) {
+        this.entries = new PostRef[capacity];
+        this.heavyFollowees = List.copyOf(heavyFollowees);
+    }
+
+    List<Long> getHeavyFollowees() {
+        return heavyFollowees;
+    }
+
+    void push(PostRef ref) {
+        lock.lock();
+        try {
+            entries[head] = ref;
+            head = (head + 1) % entries.length;
+            size = Math.min(size + 1, entries.length);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Entries newest-pushed first.
+     */
+    List<PostRef> snapshot() {
+        lock.lock();
+        try {
+            List<PostRef> result = new ArrayList<>(size);
+            for (int i = 1; i <= size; i++) {
+                result.add(entries[(head - i + entries.length) % entries.length]);
+            }
+            return result;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
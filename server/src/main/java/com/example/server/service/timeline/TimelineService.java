@@ -0,0 +1,12 @@
+package com.example.server.service.timeline;
+
+import com.example.server.DTO.post.PostPageDTO;
+import jakarta.annotation.Nullable;
+
+import java.time.LocalDateTime;
+
+public interface TimelineService {
+    PostPageDTO getHomeTimeline(Long userId, @Nullable String after, int limit);
+    void onPostPublished(Long postId, Long authorId, LocalDateTime createdAt);
+    void invalidate(Long userId);
+}
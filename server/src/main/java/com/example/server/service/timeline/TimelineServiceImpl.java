@@ -0,0 +1,254 @@
+package com.example.server.service.timeline;
+
+import com.example.server.DTO.post.FeedCursor;
+import com.example.server.DTO.post.PostPageDTO;
+import com.example.server.model.post.Post;
+import com.example.server.model.timeline.TimelineEvent;
+import com.example.server.repository.post.PostRef;
+import com.example.server.repository.post.PostRepository;
+import com.example.server.repository.timeline.TimelineEventRepository;
+import com.example.server.repository.user.FollowRepository;
+import com.example.server.service.post.PostFeedAssembler;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import jakarta.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Precomputed home timelines. Publishing a post pushes its id into the resident timelines
+ * of the author's followers (fan-out-on-write); authors with more followers than the
+ * threshold are skipped and their recent posts are pulled at read time instead.
+ * Timelines that are not resident are rebuilt from the follow graph on first read.
+ * Each instance holds its own timelines, so publishes and follow changes are also recorded as
+ * {@link TimelineEvent}s and every instance applies the ones it did not make by polling them.
+ */
+@Service
+public class TimelineServiceImpl implements TimelineService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TimelineServiceImpl.class);
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final Comparator<PostRef> NEWEST_FIRST = Comparator
+            .comparing(PostRef::getCreatedAt, Comparator.nullsLast(Comparator.reverseOrder()))
+            .thenComparing(PostRef::getId, Comparator.reverseOrder());
+    // Re-reads a little before the last sync so events committed late or not yet replicated are not missed
+    private static final Duration SYNC_OVERLAP = Duration.ofSeconds(30);
+
+    private final PostRepository postRepository;
+    private final FollowRepository followRepository;
+    private final TimelineEventRepository timelineEventRepository;
+    private final PostFeedAssembler postFeedAssembler;
+    private final TaskExecutor fanoutExecutor;
+    private final int capacity;
+    private final long fanoutThreshold;
+    private final Duration rebuildAfter;
+    private final Cache<Long, HomeTimeline> timelines;
+    // Events this instance already applied, kept while a sync could still return them
+    private final Cache<Long, Boolean> appliedEvents;
+
+    private volatile LocalDateTime lastSync = LocalDateTime.now();
+
+    public TimelineServiceImpl(PostRepository postRepository,
+                               FollowRepository followRepository,
+                               TimelineEventRepository timelineEventRepository,
+                               PostFeedAssembler postFeedAssembler,
+                               @Qualifier("timelineFanoutExecutor") TaskExecutor fanoutExecutor,
+                               @Value("${timeline.capacity:500}") int capacity,
+                               @Value("${timeline.fanout-threshold:10000}") long fanoutThreshold,
+                               @Value("${timeline.max-resident-users:50000}") long maxResidentUsers,
+                               @Value("${timeline.rebuild-after-minutes:60}") long rebuildAfterMinutes) {
+        this.postRepository = postRepository;
+        this.followRepository = followRepository;
+        this.timelineEventRepository = timelineEventRepository;
+        this.postFeedAssembler = postFeedAssembler;
+        this.fanoutExecutor = fanoutExecutor;
+        this.capacity = capacity;
+        this.fanoutThreshold = fanoutThreshold;
+        this.rebuildAfter = Duration.ofMinutes(rebuildAfterMinutes);
+        this.timelines = Caffeine.newBuilder()
+                .maximumSize(maxResidentUsers)
+                .expireAfter(new SinceRebuilt(rebuildAfter.toNanos()))
+                .build();
+        this.appliedEvents = Caffeine.newBuilder()
+                .expireAfterWrite(SYNC_OVERLAP.multipliedBy(2))
+                .build();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public PostPageDTO getHomeTimeline(Long userId, @Nullable String after, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        FeedCursor cursor = after == null || after.isBlank() ? null : FeedCursor.parse(after);
+
+        HomeTimeline timeline = timelines.get(userId, this::rebuild);
+        Map<Long, PostRef> candidates = new LinkedHashMap<>();
+        timeline.snapshot().forEach(ref -> candidates.putIfAbsent(ref.getId(), ref));
+        if (!timeline.getHeavyFollowees().isEmpty()) {
+            postRepository.findRecentRefsByAuthors(timeline.getHeavyFollowees(), Limit.of(capacity))
+                    .forEach(ref -> candidates.putIfAbsent(ref.getId(), ref));
+        }
+
+        List<PostRef> page = candidates.values().stream()
+                .filter(ref -> cursor == null || isBefore(ref, cursor))
+                .sorted(NEWEST_FIRST)
+                .limit(pageSize + 1L)
+                .collect(Collectors.toList());
+        String nextCursor = null;
+        if (page.size() > pageSize) {
+            page = page.subList(0, pageSize);
+            PostRef last = page.get(pageSize - 1);
+            nextCursor = new FeedCursor(last.getCreatedAt(), last.getId()).toString();
+        }
+
+        // Entries can point at posts deleted or unpublished since they were pushed
+        Map<Long, Post> posts = postRepository.findByIdIn(page.stream().map(PostRef::getId).toList()).stream()
+                .filter(Post::isPublished)
+                .collect(Collectors.toMap(Post::getId, Function.identity()));
+        List<Post> ordered = page.stream()
+                .map(ref -> posts.get(ref.getId()))
+                .filter(Objects::nonNull)
+                .toList();
+        return new PostPageDTO(postFeedAssembler.assemble(ordered, userId), nextCursor);
+    }
+
+    @Override
+    public void onPostPublished(Long postId, Long authorId, LocalDateTime createdAt) {
+        TimelineEvent event = record(TimelineEvent.Type.POST_PUBLISHED, authorId);
+        event.setPostId(postId);
+        event.setPostCreatedAt(createdAt);
+        applyAfterCommit(timelineEventRepository.save(event));
+    }
+
+    @Override
+    public void invalidate(Long userId) {
+        applyAfterCommit(timelineEventRepository.save(record(TimelineEvent.Type.FOLLOWS_CHANGED, userId)));
+    }
+
+    @Scheduled(fixedDelayString = "${timeline.sync-interval-ms:2000}")
+    public void sync() {
+        LocalDateTime now = LocalDateTime.now();
+        timelineEventRepository.findSince(lastSync.minus(SYNC_OVERLAP)).forEach(this::apply);
+        lastSync = now;
+    }
+
+    // Timelines older than the rebuild interval have been rebuilt since, so their events no longer matter
+    @Scheduled(fixedDelayString = "${timeline.event-purge-interval-ms:600000}")
+    public void purgeEvents() {
+        int deleted = timelineEventRepository.deleteOlderThan(LocalDateTime.now().minus(rebuildAfter).minus(SYNC_OVERLAP));
+        if (deleted > 0) {
+            logger.debug("Purged {} timeline events", deleted);
+        }
+    }
+
+    private static TimelineEvent record(TimelineEvent.Type type, Long userId) {
+        TimelineEvent event = new TimelineEvent();
+        event.setType(type);
+        event.setUserId(userId);
+        event.setCreatedAt(LocalDateTime.now());
+        return event;
+    }
+
+    // Only after commit: a rebuild before then would miss the change, and a rollback must not be applied
+    private void applyAfterCommit(TimelineEvent event) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(event);
+                }
+            });
+        } else {
+            apply(event);
+        }
+    }
+
+    private void apply(TimelineEvent event) {
+        if (appliedEvents.asMap().putIfAbsent(event.getId(), Boolean.TRUE) != null) {
+            return;
+        }
+        switch (event.getType()) {
+            case POST_PUBLISHED -> {
+                PostRef ref = new PostRef(event.getPostId(), event.getPostCreatedAt());
+                fanoutExecutor.execute(() -> fanOut(ref, event.getUserId()));
+            }
+            case FOLLOWS_CHANGED -> timelines.invalidate(event.getUserId());
+        }
+    }
+
+    private void fanOut(PostRef ref, Long authorId) {
+        try {
+            if (followRepository.countByFollowingId(authorId) >= fanoutThreshold) {
+                logger.debug("Skipping fan-out of post {}: author {} is read on demand", ref.getId(), authorId);
+                return;
+            }
+            int pushed = 0;
+            for (Long followerId : followRepository.findFollowerIds(authorId)) {
+                // Followers without a resident timeline pick the post up when theirs is rebuilt. A rebuild
+                // in progress blocks this until it is resident, so its query can't miss the post
+                HomeTimeline timeline = timelines.asMap().computeIfPresent(followerId, (id, resident) -> {
+                    resident.push(ref);
+                    return resident;
+                });
+                if (timeline != null) {
+                    pushed++;
+                }
+            }
+            logger.debug("Fanned out post {} to {} timelines", ref.getId(), pushed);
+        } catch (RuntimeException e) {
+            logger.error("Failed to fan out post {}: {}", ref.getId(), e.getMessage());
+        }
+    }
+
+    private HomeTimeline rebuild(Long userId) {
+        HomeTimeline timeline = new HomeTimeline(capacity, followRepository.findHeavyFolloweeIds(userId, fanoutThreshold));
+        List<PostRef> refs = postRepository.findFolloweeFeedRefs(userId, Limit.of(capacity));
+        for (int i = refs.size() - 1; i >= 0; i--) {
+            timeline.push(refs.get(i));
+        }
+        return timeline;
+    }
+
+    // Pushes don't postpone the rebuild, which also refreshes the heavy followee list
+    private record SinceRebuilt(long rebuildNanos) implements Expiry<Long, HomeTimeline> {
+
+        @Override
+        public long expireAfterCreate(Long userId, HomeTimeline timeline, long currentTime) {
+            return rebuildNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(Long userId, HomeTimeline timeline, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(Long userId, HomeTimeline timeline, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+
+    private static boolean isBefore(PostRef ref, FeedCursor cursor) {
+        int cmp = ref.getCreatedAt().compareTo(cursor.getCreatedAt());
+        return cmp < 0 || (cmp == 0 && ref.getId() < cursor.getId());
+    }
+}
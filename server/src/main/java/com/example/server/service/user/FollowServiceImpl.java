@@ -4,6 +4,7 @@ import com.example.server.model.user.Follow;
 import com.example.server.model.user.User;
 import com.example.server.repository.user.FollowRepository;
 import com.example.server.repository.user.UserRepository;
+import com.example.server.service.timeline.TimelineService;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
@@ -17,6 +18,7 @@ public class FollowServiceImpl implements FollowService {
 
     private final UserRepository userRepository;
     private final FollowRepository followRepository;
+    private final TimelineService timelineService;
 
     @Override
     public List<Follow> getFollowers(Long userId) {
@@ -50,6 +52,7 @@ public class FollowServiceImpl implements FollowService {
                 .followedAt(LocalDateTime.now())
                 .build();
         followRepository.save(follow);
+        timelineService.invalidate(followerId);
     }
 
     @Override
@@ -61,5 +64,6 @@ public class FollowServiceImpl implements FollowService {
                 .orElseThrow(() -> new RuntimeException("User to unfollow not found"));
 
         followRepository.deleteByFollowerAndFollowing(follower, following);
+        timelineService.invalidate(followerId);
     }
 }
\ No newline at end of file
@@ -4,9 +4,11 @@ import com.example.server.DTO.user.FollowDTO;
 import com.example.server.DTO.user.UserResponseDTO;
 import com.example.server.model.user.User;
 import com.example.server.repository.user.UserRepository;
+import com.example.server.service.media.MediaService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
@@ -15,16 +17,19 @@ import java.util.stream.Collectors;
 public class UserServiceImpl implements UserService {
 
     private final UserRepository userRepository;
+    private final MediaService mediaService;
 
     @Autowired
-    public UserServiceImpl(UserRepository userRepository) {
+    public UserServiceImpl(UserRepository userRepository, MediaService mediaService) {
         this.userRepository = userRepository;
+        this.mediaService = mediaService;
     }
 
     @Override
     public User updateUser(Long id, User userDetails) {
         return userRepository.findById(id)
                 .map(user -> {
+                    List<String> previousMedia = Arrays.asList(user.getProfilePic(), user.getCoverPhoto());
                     user.setEmail(userDetails.getEmail());
                     user.setUsername(userDetails.getUsername());
                     user.setFullName(userDetails.getFullName());
@@ -36,7 +41,9 @@ public class UserServiceImpl implements UserService {
                     user.setVerificationToken(userDetails.getVerificationToken());
                     user.setProfilePic(userDetails.getProfilePic());
                     user.setCoverPhoto(userDetails.getCoverPhoto());
-                    return userRepository.save(user);
+                    User saved = userRepository.save(user);
+                    mediaService.replace(previousMedia, Arrays.asList(saved.getProfilePic(), saved.getCoverPhoto()));
+                    return saved;
                 })
                 .orElseThrow(() -> new RuntimeException("User not found with id: " + id));
     }
@@ -87,6 +94,8 @@ public class UserServiceImpl implements UserService {
 
     @Override
     public void deleteUser(Long id) {
+        userRepository.findById(id).ifPresent(user ->
+                mediaService.release(Arrays.asList(user.getProfilePic(), user.getCoverPhoto())));
         userRepository.deleteById(Math.toIntExact(id));
     }
 }
\ No newline at end of file
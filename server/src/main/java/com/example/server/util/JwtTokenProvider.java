@@ -11,6 +11,7 @@ import org.springframework.stereotype.Component;
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
 import java.util.Date;
+import java.util.UUID;
 import java.util.function.Function;
 
 @Component
@@ -18,6 +19,9 @@ public class JwtTokenProvider {
 
     private static final Logger logger = LoggerFactory.getLogger(JwtTokenProvider.class);
 
+    // Session (refresh token family) that an access or refresh token belongs to
+    public static final String FAMILY_CLAIM = "fam";
+
     @Value("${jwt.secret}")
     private String jwtSecret;
 
@@ -35,11 +39,16 @@ public class JwtTokenProvider {
 
     private SecretKey signingKey;
     private SecretKey refreshSigningKey;
+    // Parsers are immutable and thread-safe, so they are built once per key
+    private JwtParser accessParser;
+    private JwtParser refreshParser;
 
     @PostConstruct
     public void init() {
         this.signingKey = generateKey(jwtSecret, "access token");
         this.refreshSigningKey = generateKey(jwtRefreshSecret, "refresh token");
+        this.accessParser = Jwts.parser().setSigningKey(signingKey).build();
+        this.refreshParser = Jwts.parser().setSigningKey(refreshSigningKey).build();
         logger.info("JwtTokenProvider initialized with algorithm: {}", algorithm);
     }
 
@@ -52,22 +61,39 @@ public class JwtTokenProvider {
         return Keys.hmacShaKeyFor(keyBytes);
     }
 
-    public String generateAccessToken(String email, String provider) {
-        return generateToken(email, jwtExpirationInMs, provider, signingKey);
+    /**
+     * An access token bound to its session's family, so revoking the family rejects it; only
+     * {@code RefreshTokenService} should issue these.
+     */
+    public String generateAccessToken(String email, String provider, UUID familyId) {
+        return buildToken(email, jwtExpirationInMs, provider)
+                .claim(FAMILY_CLAIM, familyId.toString())
+                .signWith(signingKey, SignatureAlgorithm.valueOf(algorithm))
+                .compact();
+    }
+
+    /**
+     * A refresh token carrying its store id ({@code jti}) and family; only
+     * {@code RefreshTokenService} should issue these, so they are tracked.
+     */
+    public String generateRefreshToken(String email, String provider, UUID tokenId, UUID familyId) {
+        return buildToken(email, jwtRefreshExpirationInMs, provider)
+                .setId(tokenId.toString())
+                .claim(FAMILY_CLAIM, familyId.toString())
+                .signWith(refreshSigningKey, SignatureAlgorithm.valueOf(algorithm))
+                .compact();
     }
 
-    public String generateRefreshToken(String email, String provider) {
-        return generateToken(email, jwtRefreshExpirationInMs, provider, refreshSigningKey);
+    public long getRefreshExpirationMs() {
+        return jwtRefreshExpirationInMs;
     }
 
-    private String generateToken(String email, long expiration, String provider, SecretKey key) {
+    private JwtBuilder buildToken(String email, long expiration, String provider) {
         return Jwts.builder()
                 .setSubject(email)
                 .claim("provider", provider)
                 .setIssuedAt(new Date())
-                .setExpiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(key, SignatureAlgorithm.valueOf(algorithm))
-                .compact();
+                .setExpiration(new Date(System.currentTimeMillis() + expiration));
     }
 
     public boolean validateToken(String token, boolean isRefresh) {
@@ -111,12 +137,27 @@ public class JwtTokenProvider {
         return extractClaim(token, Claims::getExpiration, isRefresh ? refreshSigningKey : signingKey);
     }
 
+    /**
+     * Verifies an access token once and returns all of its claims. Unlike the per-claim
+     * accessors, jjwt's own exceptions are thrown so callers can tell expiry from forgery.
+     */
+    public Claims parseAccessToken(String token) {
+        validateTokenNotNullOrEmpty(token);
+        return accessParser.parseClaimsJws(token.trim()).getBody();
+    }
+
+    /**
+     * Verifies a refresh token's signature and expiry; whether it is still usable is up to the store.
+     */
+    public Claims parseRefreshToken(String token) {
+        validateTokenNotNullOrEmpty(token);
+        return refreshParser.parseClaimsJws(token.trim()).getBody();
+    }
+
     private Claims parseClaims(String token, SecretKey key) {
         validateTokenNotNullOrEmpty(token);
         try {
-            return Jwts.parser()
-                    .setSigningKey(key)
-                    .build()
+            return (key == refreshSigningKey ? refreshParser : accessParser)
                     .parseClaimsJws(token.trim())
                     .getBody();
         } catch (JwtException e) {
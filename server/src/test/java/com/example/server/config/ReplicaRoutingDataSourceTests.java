@@ -0,0 +1,176 @@
+package com.example.server.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Connection routing behind the lazy proxy: read-only transactions reach a replica even when
+ * nothing sets the connection's read-only flag, and everything else reaches the primary.
+ * Sessions reading from a replica never fill the second-level cache.
+ */
+class ReplicaRoutingDataSourceTests {
+
+    private HikariDataSource primary;
+    private HikariDataSource replica;
+    private ReplicaRoutingDataSource routing;
+    private DataSource dataSource;
+    private final EntityManagerFactory entityManagerFactory = mock(EntityManagerFactory.class);
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        primary = mock(HikariDataSource.class);
+        replica = mock(HikariDataSource.class);
+        when(primary.getConnection()).thenReturn(mock(Connection.class));
+        when(replica.getConnection()).thenReturn(mock(Connection.class));
+        routing = new ReplicaRoutingDataSource(primary, List.of(replica), Duration.ZERO, new SimpleMeterRegistry());
+        LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy(routing);
+        proxy.setDefaultAutoCommit(true);
+        proxy.setDefaultTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+        dataSource = proxy;
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.hasResource(entityManagerFactory)) {
+            TransactionSynchronizationManager.unbindResource(entityManagerFactory);
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+    }
+
+    @Test
+    void readOnlyTransactionGetsReplicaConnection() throws SQLException {
+        TransactionTemplate readOnly = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        readOnly.setReadOnly(true);
+
+        readOnly.executeWithoutResult(status -> firstStatement());
+
+        verify(replica).getConnection();
+        verify(primary, never()).getConnection();
+    }
+
+    @Test
+    void readOnlyFlagOnTransactionAloneIsEnough() throws SQLException {
+        // As with JPA and delayed acquisition: the transaction is read-only, the connection is never told
+        TransactionSynchronizationManager.initSynchronization();
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        firstStatement();
+
+        verify(replica).getConnection();
+        verify(primary, never()).getConnection();
+    }
+
+    @Test
+    void writeTransactionGetsPrimaryConnection() throws SQLException {
+        new TransactionTemplate(new DataSourceTransactionManager(dataSource)).executeWithoutResult(status -> firstStatement());
+
+        verify(primary).getConnection();
+        verify(replica, never()).getConnection();
+    }
+
+    @Test
+    void noTransactionGetsPrimaryConnection() throws SQLException {
+        firstStatement();
+
+        verify(primary).getConnection();
+        verify(replica, never()).getConnection();
+    }
+
+    @Test
+    void replicaSessionReadsButNeverFillsTheSecondLevelCache() {
+        Session session = bindSession();
+        TransactionTemplate readOnly = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        readOnly.setReadOnly(true);
+
+        readOnly.executeWithoutResult(status -> firstStatement());
+
+        InOrder order = inOrder(session);
+        order.verify(session).setCacheMode(CacheMode.GET);
+        // Restored for the rest of the open-in-view request
+        order.verify(session).setCacheMode(CacheMode.NORMAL);
+    }
+
+    @Test
+    void primarySessionKeepsFillingTheSecondLevelCache() {
+        Session session = bindSession();
+
+        new TransactionTemplate(new DataSourceTransactionManager(dataSource)).executeWithoutResult(status -> firstStatement());
+
+        verify(session, never()).setCacheMode(any());
+    }
+
+    @Test
+    void unavailableReplicaFallsBackToPrimary() throws SQLException {
+        when(replica.getConnection()).thenThrow(new SQLTransientConnectionException("timeout"));
+        TransactionSynchronizationManager.initSynchronization();
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        firstStatement();
+
+        verify(primary).getConnection();
+    }
+
+    @Test
+    void credentialedConnectionsAreRoutedToo() throws SQLException {
+        when(replica.getConnection("reader", "secret")).thenReturn(mock(Connection.class));
+        TransactionSynchronizationManager.initSynchronization();
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        routing.getConnection("reader", "secret");
+
+        verify(replica).getConnection("reader", "secret");
+    }
+
+    private Session bindSession() {
+        Session session = mock(Session.class);
+        when(session.getCacheMode()).thenReturn(CacheMode.NORMAL);
+        when(session.isOpen()).thenReturn(true);
+        EntityManager entityManager = mock(EntityManager.class);
+        when(entityManager.unwrap(Session.class)).thenReturn(session);
+        TransactionSynchronizationManager.bindResource(entityManagerFactory, new EntityManagerHolder(entityManager));
+        return session;
+    }
+
+    // The lazy proxy only fetches a physical connection once a statement is created
+    private void firstStatement() {
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try {
+            connection.createStatement();
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.server.config;
+
+import com.example.server.repository.user.UserRepository;
+import com.example.server.security.JwtAuthenticator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.security.Principal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Inbound frame checks: clients subscribe only to their own user destinations once
+ * authenticated, send only to application destinations, and never reach broker topics.
+ */
+class StompAuthChannelInterceptorTests {
+
+    private static final Principal USER = new UsernamePasswordAuthenticationToken("42", null,
+            List.of(new SimpleGrantedAuthority("ROLE_USER")));
+
+    private StompAuthChannelInterceptor interceptor;
+    private MessageChannel channel;
+
+    @BeforeEach
+    void setUp() {
+        interceptor = new StompAuthChannelInterceptor(mock(JwtAuthenticator.class), mock(UserRepository.class));
+        channel = mock(MessageChannel.class);
+    }
+
+    @Test
+    void authenticatedUserSubscribesToOwnQueue() {
+        Message<?> message = frame(StompCommand.SUBSCRIBE, "/user/queue/notifications", USER);
+
+        assertThat(interceptor.preSend(message, channel)).isSameAs(message);
+    }
+
+    @Test
+    void anonymousSubscriptionToUserDestinationIsRejected() {
+        assertThatThrownBy(() -> interceptor.preSend(frame(StompCommand.SUBSCRIBE, "/user/queue/notifications", null), channel))
+                .isInstanceOf(MessageDeliveryException.class);
+    }
+
+    @Test
+    void brokerTopicsAreNotSubscribable() {
+        for (String destination : List.of("/topic/simp-user-registry", "/topic/unresolved-user-destination",
+                "/topic/anything", "/queue/notifications-user123")) {
+            assertThatThrownBy(() -> interceptor.preSend(frame(StompCommand.SUBSCRIBE, destination, USER), channel))
+                    .isInstanceOf(MessageDeliveryException.class);
+        }
+    }
+
+    @Test
+    void clientsCannotSendToBrokerDestinations() {
+        assertThatThrownBy(() -> interceptor.preSend(frame(StompCommand.SEND, "/topic/unresolved-user-destination", USER), channel))
+                .isInstanceOf(MessageDeliveryException.class);
+        assertThatThrownBy(() -> interceptor.preSend(frame(StompCommand.SEND, "/user/42/queue/notifications", USER), channel))
+                .isInstanceOf(MessageDeliveryException.class);
+    }
+
+    @Test
+    void clientsSendToApplicationDestinations() {
+        Message<?> message = frame(StompCommand.SEND, "/app/ping", USER);
+
+        assertThat(interceptor.preSend(message, channel)).isSameAs(message);
+    }
+
+    private static Message<?> frame(StompCommand command, String destination, Principal user) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(command);
+        accessor.setDestination(destination);
+        accessor.setSubscriptionId("sub-0");
+        accessor.setSessionId("session-1");
+        accessor.setUser(user);
+        accessor.setLeaveMutable(true);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.server.security;
+
+import com.example.server.service.auth.RevokedTokenFamilies;
+import com.example.server.util.JwtTokenProvider;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * The verified-claims cache: a repeated token skips verification until it expires, revocation
+ * is checked on every request, and tokens that fail verification are never cached.
+ */
+class JwtAuthenticatorTests {
+
+    private static final String TOKEN = "header.payload.signature";
+    private static final UUID FAMILY = UUID.randomUUID();
+
+    private JwtTokenProvider jwtTokenProvider;
+    private RevokedTokenFamilies revokedTokenFamilies;
+    private JwtAuthenticator authenticator;
+
+    @BeforeEach
+    void setUp() {
+        jwtTokenProvider = mock(JwtTokenProvider.class);
+        revokedTokenFamilies = mock(RevokedTokenFamilies.class);
+        authenticator = new JwtAuthenticator(jwtTokenProvider, revokedTokenFamilies, true, 100, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void repeatedTokenIsVerifiedOnce() {
+        when(jwtTokenProvider.parseAccessToken(TOKEN)).thenReturn(claims(Duration.ofMinutes(15)));
+
+        JwtPrincipal first = authenticator.authenticate(TOKEN);
+        JwtPrincipal second = authenticator.authenticate(TOKEN);
+
+        assertThat(second).isEqualTo(first);
+        assertThat(second.email()).isEqualTo("user@example.com");
+        verify(jwtTokenProvider, times(1)).parseAccessToken(TOKEN);
+    }
+
+    @Test
+    void cachedEntryExpiresWithItsToken() throws InterruptedException {
+        when(jwtTokenProvider.parseAccessToken(TOKEN))
+                .thenReturn(claims(Duration.ofMillis(200)))
+                .thenThrow(new ExpiredJwtException(null, null, "expired"));
+
+        authenticator.authenticate(TOKEN);
+        Thread.sleep(300);
+
+        assertThatThrownBy(() -> authenticator.authenticate(TOKEN)).isInstanceOf(ExpiredJwtException.class);
+        verify(jwtTokenProvider, times(2)).parseAccessToken(TOKEN);
+    }
+
+    @Test
+    void revokedSessionIsRejectedEvenWhenCached() {
+        when(jwtTokenProvider.parseAccessToken(TOKEN)).thenReturn(claims(Duration.ofMinutes(15)));
+        authenticator.authenticate(TOKEN);
+
+        when(revokedTokenFamilies.isRevoked(FAMILY)).thenReturn(true);
+
+        assertThatThrownBy(() -> authenticator.authenticate(TOKEN)).isInstanceOf(JwtException.class);
+        verify(jwtTokenProvider, times(1)).parseAccessToken(TOKEN);
+    }
+
+    @Test
+    void invalidTokenIsNeverCached() {
+        when(jwtTokenProvider.parseAccessToken(any())).thenThrow(new JwtException("bad signature"));
+
+        assertThatThrownBy(() -> authenticator.authenticate(TOKEN)).isInstanceOf(JwtException.class);
+        assertThatThrownBy(() -> authenticator.authenticate(TOKEN)).isInstanceOf(JwtException.class);
+
+        verify(jwtTokenProvider, times(2)).parseAccessToken(TOKEN);
+    }
+
+    @Test
+    void tokenWithoutExpirationIsRejectedAndNotCached() {
+        Claims noExpiry = Jwts.claims().subject("user@example.com").build();
+        when(jwtTokenProvider.parseAccessToken(TOKEN)).thenReturn(noExpiry);
+
+        assertThatThrownBy(() -> authenticator.authenticate(TOKEN)).isInstanceOf(JwtException.class);
+        assertThatThrownBy(() -> authenticator.authenticate(TOKEN)).isInstanceOf(JwtException.class);
+
+        verify(jwtTokenProvider, times(2)).parseAccessToken(TOKEN);
+    }
+
+    private static Claims claims(Duration validFor) {
+        return Jwts.claims()
+                .subject("user@example.com")
+                .expiration(Date.from(Instant.now().plus(validFor)))
+                .add(JwtTokenProvider.FAMILY_CLAIM, FAMILY.toString())
+                .add("provider", "local")
+                .build();
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.server.service.auth;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The revoked-family Bloom filter: no false negatives, and a false positive rate near the
+ * configured one at the expected load.
+ */
+class FamilyBloomFilterTests {
+
+    @Test
+    void containsEveryInsertedFamily() {
+        FamilyBloomFilter filter = new FamilyBloomFilter(1_000, 0.01);
+        List<UUID> families = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            UUID family = UUID.randomUUID();
+            families.add(family);
+            filter.put(family);
+        }
+
+        assertThat(families).allMatch(filter::mightContain);
+    }
+
+    @Test
+    void falsePositiveRateStaysNearConfiguredRate() {
+        FamilyBloomFilter filter = new FamilyBloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put(UUID.randomUUID());
+        }
+
+        int positives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain(UUID.randomUUID())) {
+                positives++;
+            }
+        }
+        // 1% expected; a generous bound keeps the test stable
+        assertThat(positives).isLessThan(2_000);
+    }
+
+    @Test
+    void emptyFilterContainsNothing() {
+        FamilyBloomFilter filter = new FamilyBloomFilter(0, 0.01);
+
+        assertThat(filter.mightContain(UUID.randomUUID())).isFalse();
+    }
+}
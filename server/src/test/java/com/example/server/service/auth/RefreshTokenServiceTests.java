@@ -0,0 +1,125 @@
+package com.example.server.service.auth;
+
+import com.example.server.model.auth.RefreshToken;
+import com.example.server.repository.auth.RefreshTokenRepository;
+import com.example.server.util.JwtTokenProvider;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.MalformedJwtException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Refresh token rotation: a token is exchanged once for its successor in the same family,
+ * and presenting it again revokes the whole family, including its access tokens.
+ */
+class RefreshTokenServiceTests {
+
+    private static final String EMAIL = "alice@example.com";
+
+    private RefreshTokenRepository refreshTokenRepository;
+    private RevokedTokenFamilies revokedTokenFamilies;
+    private JwtTokenProvider jwtTokenProvider;
+    private RefreshTokenService service;
+
+    @BeforeEach
+    void setUp() {
+        refreshTokenRepository = mock(RefreshTokenRepository.class);
+        jwtTokenProvider = mock(JwtTokenProvider.class);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        revokedTokenFamilies = new RevokedTokenFamilies(refreshTokenRepository, 1_000, 0.01, meterRegistry);
+        when(jwtTokenProvider.getRefreshExpirationMs()).thenReturn(60_000L);
+        when(jwtTokenProvider.generateAccessToken(anyString(), anyString(), any(UUID.class))).thenReturn("access");
+        when(jwtTokenProvider.generateRefreshToken(anyString(), anyString(), any(UUID.class), any(UUID.class)))
+                .thenReturn("refresh");
+        service = new RefreshTokenService(refreshTokenRepository, revokedTokenFamilies, jwtTokenProvider, meterRegistry);
+    }
+
+    @Test
+    void startSessionIssuesAccessTokenInNewFamily() {
+        RefreshTokenService.TokenPair tokens = service.startSession(EMAIL, "local");
+
+        ArgumentCaptor<RefreshToken> saved = ArgumentCaptor.forClass(RefreshToken.class);
+        verify(refreshTokenRepository).save(saved.capture());
+        UUID familyId = saved.getValue().getFamilyId();
+        verify(jwtTokenProvider).generateAccessToken(EMAIL, "local", familyId);
+        verify(jwtTokenProvider).generateRefreshToken(EMAIL, "local", saved.getValue().getId(), familyId);
+        assertThat(tokens.accessToken()).isEqualTo("access");
+        assertThat(tokens.refreshToken()).isEqualTo("refresh");
+    }
+
+    @Test
+    void rotationIssuesSuccessorInSameFamily() {
+        UUID tokenId = UUID.randomUUID();
+        UUID familyId = UUID.randomUUID();
+        when(jwtTokenProvider.parseRefreshToken("presented")).thenReturn(claims(tokenId, familyId));
+        when(refreshTokenRepository.markUsed(eq(tokenId), eq(familyId), any())).thenReturn(1);
+
+        service.rotate("presented");
+
+        ArgumentCaptor<RefreshToken> saved = ArgumentCaptor.forClass(RefreshToken.class);
+        verify(refreshTokenRepository).save(saved.capture());
+        assertThat(saved.getValue().getFamilyId()).isEqualTo(familyId);
+        assertThat(saved.getValue().getId()).isNotEqualTo(tokenId);
+        assertThat(revokedTokenFamilies.isRevoked(familyId)).isFalse();
+    }
+
+    @Test
+    void reusedTokenRevokesItsFamily() {
+        UUID tokenId = UUID.randomUUID();
+        UUID familyId = UUID.randomUUID();
+        when(jwtTokenProvider.parseRefreshToken("replayed")).thenReturn(claims(tokenId, familyId));
+        // Already exchanged once
+        when(refreshTokenRepository.markUsed(eq(tokenId), eq(familyId), any())).thenReturn(0);
+
+        assertThatThrownBy(() -> service.rotate("replayed")).isInstanceOf(InvalidRefreshTokenException.class);
+
+        verify(refreshTokenRepository).revokeFamily(eq(familyId), any());
+        verify(refreshTokenRepository, never()).save(any());
+        assertThat(revokedTokenFamilies.isRevoked(familyId)).isTrue();
+    }
+
+    @Test
+    void revokedFamilyIsRejectedWithoutTouchingTheStore() {
+        UUID tokenId = UUID.randomUUID();
+        UUID familyId = UUID.randomUUID();
+        revokedTokenFamilies.add(familyId);
+        when(jwtTokenProvider.parseRefreshToken("revoked")).thenReturn(claims(tokenId, familyId));
+
+        assertThatThrownBy(() -> service.rotate("revoked")).isInstanceOf(InvalidRefreshTokenException.class);
+
+        verify(refreshTokenRepository, never()).markUsed(any(), any(), any());
+    }
+
+    @Test
+    void untrackedTokenIsInvalid() {
+        when(jwtTokenProvider.parseRefreshToken("legacy")).thenThrow(new MalformedJwtException("no id"));
+
+        assertThatThrownBy(() -> service.rotate("legacy")).isInstanceOf(InvalidRefreshTokenException.class);
+
+        verify(refreshTokenRepository, never()).revokeFamily(any(), any());
+    }
+
+    private static Claims claims(UUID tokenId, UUID familyId) {
+        return Jwts.claims()
+                .subject(EMAIL)
+                .id(tokenId.toString())
+                .add(JwtTokenProvider.FAMILY_CLAIM, familyId.toString())
+                .add("provider", "local")
+                .build();
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.server.service.media;
+
+import com.example.server.model.media.ImageDerivative;
+import com.example.server.repository.media.ImageDerivativeRepository;
+import com.example.server.service.storage.StorageBackend;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Identical uploads share a storage key, so their derivatives are generated once; a generation
+ * that fails or loses a race to another instance leaves no variants behind and no failure counted.
+ */
+class ImageDerivativeServiceTests {
+
+    private static final String KEY = "media/a.png";
+
+    private StorageBackend storageBackend;
+    private ImageDerivativeRepository derivativeRepository;
+    private SimpleMeterRegistry meterRegistry;
+    private final List<Runnable> queued = new ArrayList<>();
+    private ImageDerivativeService service;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        storageBackend = mock(StorageBackend.class);
+        derivativeRepository = mock(ImageDerivativeRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+        ThreadPoolTaskExecutor executor = mock(ThreadPoolTaskExecutor.class);
+        doAnswer(invocation -> queued.add(invocation.getArgument(0))).when(executor).execute(any(Runnable.class));
+        MediaService mediaService = mock(MediaService.class);
+        when(mediaService.urlFor(anyString())).thenAnswer(invocation -> "https://media.example/" + invocation.getArgument(0));
+
+        byte[] png = png(800, 600);
+        when(storageBackend.get(KEY)).thenAnswer(invocation -> new ByteArrayInputStream(png));
+        when(storageBackend.put(anyString(), any(), anyLong(), anyString())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(derivativeRepository.findBySourceKey(KEY)).thenReturn(Optional.empty());
+
+        service = new ImageDerivativeService(storageBackend, mediaService, derivativeRepository, executor,
+                new int[]{320, 640}, meterRegistry);
+    }
+
+    @Test
+    void identicalUploadsQueuedTogetherAreGeneratedOnce() throws IOException {
+        service.enqueue(KEY, "https://media.example/" + KEY, "image/png");
+        service.enqueue(KEY, "https://media.example/" + KEY, "image/png");
+
+        assertThat(queued).hasSize(1);
+        queued.get(0).run();
+
+        verify(storageBackend, times(1)).get(KEY);
+        verify(derivativeRepository, times(1)).save(any(ImageDerivative.class));
+        assertThat(failures()).isZero();
+    }
+
+    @Test
+    void keyCanBeQueuedAgainOnceGenerationFinished() {
+        service.enqueue(KEY, "https://media.example/" + KEY, "image/png");
+        queued.remove(0).run();
+
+        service.enqueue(KEY, "https://media.example/" + KEY, "image/png");
+
+        assertThat(queued).hasSize(1);
+    }
+
+    @Test
+    void losingTheInsertToAnotherInstanceIsNotAFailure() throws IOException {
+        when(derivativeRepository.save(any(ImageDerivative.class))).thenThrow(new DataIntegrityViolationException("uk"));
+
+        service.enqueue(KEY, "https://media.example/" + KEY, "image/png");
+        queued.get(0).run();
+
+        assertThat(failures()).isZero();
+        // The winner's row points at the same keys, so they must stay
+        verify(storageBackend, never()).delete(anyString());
+    }
+
+    @Test
+    void failedGenerationDeletesTheVariantsItStored() throws IOException {
+        when(storageBackend.put(eq(KEY + ".w640.jpg"), any(), anyLong(), anyString())).thenThrow(new IOException("store down"));
+
+        service.enqueue(KEY, "https://media.example/" + KEY, "image/png");
+        queued.get(0).run();
+
+        assertThat(failures()).isEqualTo(1.0);
+        verify(storageBackend).delete(KEY + ".w320.jpg");
+        verify(derivativeRepository, never()).save(any(ImageDerivative.class));
+    }
+
+    private double failures() {
+        return meterRegistry.counter("media.derivatives.failures").count();
+    }
+
+    private static byte[] png(int width, int height) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), "png", out);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.server.service.media;
+
+import com.example.server.model.media.MediaObject;
+import com.example.server.repository.media.MediaObjectRepository;
+import com.example.server.service.storage.StorageBackend;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Content-addressed uploads: duplicates are not transferred again, and content the sweeper
+ * is deleting is only stored again once its delete has finished.
+ */
+class MediaServiceTests {
+
+    private static final MockMultipartFile FILE =
+            new MockMultipartFile("file", "photo.JPG", "image/jpeg", "pixels".getBytes(StandardCharsets.UTF_8));
+
+    private StorageBackend storageBackend;
+    private MediaObjectRepository mediaObjectRepository;
+    private MediaService mediaService;
+
+    @BeforeEach
+    void setUp() {
+        storageBackend = mock(StorageBackend.class);
+        mediaObjectRepository = mock(MediaObjectRepository.class);
+        when(mediaObjectRepository.save(any(MediaObject.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        mediaService = new MediaService(storageBackend, mediaObjectRepository, "https://api.example.com/", 1_000,
+                new SimpleMeterRegistry());
+    }
+
+    @Test
+    void storesNewContentUnderItsHash() throws IOException {
+        when(mediaObjectRepository.findByContentHash(anyString())).thenReturn(Optional.empty());
+
+        MediaObject media = mediaService.store(FILE, "b2/x-auto");
+
+        assertThat(media.getStorageKey()).matches("media/[0-9a-f]{64}\\.jpg");
+        assertThat(media.getUrl()).isEqualTo("https://api.example.com/api/media/" + media.getStorageKey());
+        verify(storageBackend).put(media.getStorageKey(), FILE, FILE.getSize(), "b2/x-auto");
+    }
+
+    @Test
+    void duplicateContentIsNotTransferredAgain() throws IOException {
+        MediaObject stored = stored();
+        when(mediaObjectRepository.findByContentHash(anyString())).thenReturn(Optional.of(stored));
+        when(mediaObjectRepository.touch(eq(1L), any())).thenReturn(1);
+
+        assertThat(mediaService.store(FILE, "b2/x-auto")).isSameAs(stored);
+        verify(storageBackend, never()).put(anyString(), any(), anyLong(), anyString());
+        verify(mediaObjectRepository, never()).save(any());
+    }
+
+    @Test
+    void waitsForSweepOfSameContentBeforeStoringAgain() throws IOException {
+        // Claimed by the sweeper on the first look, gone once its delete finished
+        when(mediaObjectRepository.findByContentHash(anyString()))
+                .thenReturn(Optional.of(stored()))
+                .thenReturn(Optional.empty());
+        when(mediaObjectRepository.touch(eq(1L), any())).thenReturn(0);
+
+        MediaObject media = mediaService.store(FILE, "b2/x-auto");
+
+        verify(storageBackend).put(media.getStorageKey(), FILE, FILE.getSize(), "b2/x-auto");
+        verify(mediaObjectRepository).save(media);
+    }
+
+    @Test
+    void failsIfSweepDoesNotFinishInTime() throws IOException {
+        when(mediaObjectRepository.findByContentHash(anyString())).thenReturn(Optional.of(stored()));
+        when(mediaObjectRepository.touch(eq(1L), any())).thenReturn(0);
+
+        assertThatThrownBy(() -> mediaService.store(FILE, "b2/x-auto")).isInstanceOf(IOException.class);
+        verify(storageBackend, never()).put(anyString(), any(), anyLong(), anyString());
+    }
+
+    @Test
+    void newReferencesGoThroughTheTombstoneLiftingUpdate() {
+        mediaService.replace(List.of("https://api.example.com/api/media/old.jpg"),
+                List.of("https://api.example.com/api/media/new.jpg"));
+
+        verify(mediaObjectRepository).addReferences("https://api.example.com/api/media/new.jpg", 1L);
+        verify(mediaObjectRepository).adjustRefCount("https://api.example.com/api/media/old.jpg", -1L);
+        verify(mediaObjectRepository, never()).addReferences(eq("https://api.example.com/api/media/old.jpg"), anyLong());
+    }
+
+    private static MediaObject stored() {
+        MediaObject media = new MediaObject();
+        media.setId(1L);
+        media.setStorageKey("media/abc.jpg");
+        return media;
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.server.service.media;
+
+import com.example.server.model.media.ImageDerivative;
+import com.example.server.model.media.ImageVariant;
+import com.example.server.model.media.MediaObject;
+import com.example.server.repository.media.ImageDerivativeRepository;
+import com.example.server.repository.media.MediaObjectRepository;
+import com.example.server.service.storage.StorageBackend;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Sweeping: an object is claimed with a tombstone, its files are deleted, and only then is
+ * its row removed; objects claimed by an upload or referenced again meanwhile are left alone.
+ */
+class MediaSweeperTests {
+
+    private MediaObjectRepository mediaObjectRepository;
+    private ImageDerivativeRepository imageDerivativeRepository;
+    private StorageBackend storageBackend;
+    private MediaSweeper sweeper;
+
+    @BeforeEach
+    void setUp() {
+        mediaObjectRepository = mock(MediaObjectRepository.class);
+        imageDerivativeRepository = mock(ImageDerivativeRepository.class);
+        storageBackend = mock(StorageBackend.class);
+        when(mediaObjectRepository.findDeleting(any(Limit.class))).thenReturn(List.of());
+        when(imageDerivativeRepository.findBySourceKey(anyString())).thenReturn(Optional.empty());
+        when(mediaObjectRepository.lockTombstone(anyLong())).thenAnswer(invocation -> Optional.of(new MediaObject()));
+        when(mediaObjectRepository.deleteTombstone(anyLong())).thenReturn(1);
+        sweeper = new MediaSweeper(mediaObjectRepository, imageDerivativeRepository, storageBackend,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)), 192);
+    }
+
+    @Test
+    void deletesFilesBeforeRemovingTombstone() throws IOException {
+        MediaObject media = media(1L, "media/a.jpg");
+        ImageDerivative derivative = new ImageDerivative();
+        ImageVariant thumbnail = new ImageVariant();
+        thumbnail.setStorageKey("derived/a-thumb.webp");
+        derivative.setVariants(List.of(thumbnail));
+        when(mediaObjectRepository.findUnreferenced(any(), any(Limit.class))).thenReturn(List.of(media));
+        when(mediaObjectRepository.markDeleting(eq(1L), any(), any())).thenReturn(1);
+        when(imageDerivativeRepository.findBySourceKey("media/a.jpg")).thenReturn(Optional.of(derivative));
+
+        sweeper.sweep();
+
+        InOrder order = inOrder(mediaObjectRepository, storageBackend, imageDerivativeRepository);
+        order.verify(mediaObjectRepository).markDeleting(eq(1L), any(), any());
+        order.verify(storageBackend).delete("derived/a-thumb.webp");
+        order.verify(imageDerivativeRepository).delete(derivative);
+        order.verify(storageBackend).delete("media/a.jpg");
+        order.verify(mediaObjectRepository).deleteTombstone(1L);
+    }
+
+    @Test
+    void deletesEveryWidthVariantAndTheDerivativeRow() throws IOException {
+        MediaObject media = media(1L, "media/a.jpg");
+        ImageDerivative derivative = new ImageDerivative();
+        derivative.setSourceKey("media/a.jpg");
+        derivative.setVariants(List.of(
+                new ImageVariant(320, "media/a.jpg.w320.jpg", "https://media.example/media/a.jpg.w320.jpg"),
+                new ImageVariant(640, "media/a.jpg.w640.jpg", "https://media.example/media/a.jpg.w640.jpg")));
+        when(mediaObjectRepository.findDeleting(any(Limit.class))).thenReturn(List.of(media));
+        when(mediaObjectRepository.findUnreferenced(any(), any(Limit.class))).thenReturn(List.of());
+        when(imageDerivativeRepository.findBySourceKey("media/a.jpg")).thenReturn(Optional.of(derivative));
+
+        sweeper.sweep();
+
+        verify(storageBackend).delete("media/a.jpg.w320.jpg");
+        verify(storageBackend).delete("media/a.jpg.w640.jpg");
+        verify(imageDerivativeRepository).delete(derivative);
+        verify(mediaObjectRepository).deleteTombstone(1L);
+    }
+
+    @Test
+    void skipsObjectClaimedByUploadMeanwhile() throws IOException {
+        when(mediaObjectRepository.findUnreferenced(any(), any(Limit.class)))
+                .thenReturn(List.of(media(1L, "media/a.jpg")));
+        when(mediaObjectRepository.markDeleting(eq(1L), any(), any())).thenReturn(0);
+
+        sweeper.sweep();
+
+        verify(storageBackend, never()).delete(anyString());
+        verify(mediaObjectRepository, never()).deleteTombstone(anyLong());
+    }
+
+    @Test
+    void keepsFilesOfObjectReferencedAgainAfterItsTombstone() throws IOException {
+        when(mediaObjectRepository.findUnreferenced(any(), any(Limit.class)))
+                .thenReturn(List.of(media(1L, "media/a.jpg")));
+        when(mediaObjectRepository.markDeleting(eq(1L), any(), any())).thenReturn(1);
+        // A post saved between the claim and the delete lifted the tombstone
+        when(mediaObjectRepository.lockTombstone(1L)).thenReturn(Optional.empty());
+
+        sweeper.sweep();
+
+        verify(storageBackend, never()).delete(anyString());
+        verify(imageDerivativeRepository, never()).delete(any());
+        verify(mediaObjectRepository, never()).deleteTombstone(anyLong());
+    }
+
+    @Test
+    void keepsTombstoneWhenStorageDeleteFails() throws IOException {
+        when(mediaObjectRepository.findUnreferenced(any(), any(Limit.class)))
+                .thenReturn(List.of(media(1L, "media/a.jpg")));
+        when(mediaObjectRepository.markDeleting(eq(1L), any(), any())).thenReturn(1);
+        doThrow(new IOException("unavailable")).when(storageBackend).delete("media/a.jpg");
+
+        sweeper.sweep();
+
+        verify(mediaObjectRepository, never()).deleteTombstone(anyLong());
+    }
+
+    @Test
+    void finishesTombstonesLeftByEarlierSweeps() throws IOException {
+        when(mediaObjectRepository.findDeleting(any(Limit.class))).thenReturn(List.of(media(2L, "media/b.png")));
+        when(mediaObjectRepository.findUnreferenced(any(), any(Limit.class))).thenReturn(List.of());
+
+        sweeper.sweep();
+
+        verify(storageBackend).delete("media/b.png");
+        verify(mediaObjectRepository).deleteTombstone(2L);
+        verify(mediaObjectRepository, never()).markDeleting(eq(2L), any(), any());
+    }
+
+    private static MediaObject media(Long id, String key) {
+        MediaObject media = new MediaObject();
+        media.setId(id);
+        media.setStorageKey(key);
+        return media;
+    }
+}
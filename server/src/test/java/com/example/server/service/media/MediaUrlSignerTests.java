@@ -0,0 +1,80 @@
+package com.example.server.service.media;
+
+import com.example.server.repository.media.ImageDerivativeRepository;
+import com.example.server.repository.media.MediaObjectRepository;
+import com.example.server.service.storage.DownloadAuthorization;
+import com.example.server.service.storage.StorageBackend;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Signing is limited to stored media and derivatives under an allowed prefix; nothing else
+ * gets an authorization from the store.
+ */
+class MediaUrlSignerTests {
+
+    private StorageBackend storageBackend;
+    private MediaObjectRepository mediaObjectRepository;
+    private ImageDerivativeRepository imageDerivativeRepository;
+    private MediaUrlSigner signer;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        storageBackend = mock(StorageBackend.class);
+        mediaObjectRepository = mock(MediaObjectRepository.class);
+        imageDerivativeRepository = mock(ImageDerivativeRepository.class);
+        when(storageBackend.authorizePrefix(anyString(), any(Duration.class)))
+                .thenReturn(new DownloadAuthorization("media/", "token", Instant.now().plus(Duration.ofDays(1))));
+        when(storageBackend.signedUrl(anyString(), any(DownloadAuthorization.class)))
+                .thenAnswer(invocation -> "https://f000.example.com/file/bucket/" + invocation.getArgument(0));
+        signer = new MediaUrlSigner(storageBackend, mediaObjectRepository, imageDerivativeRepository,
+                List.of("media/"), 1440, 60);
+    }
+
+    @Test
+    void signsStoredMediaAndRemembersIt() throws IOException {
+        when(mediaObjectRepository.existsByStorageKeyAndDeletingAtIsNull("media/a.jpg")).thenReturn(true);
+
+        assertThat(signer.sign("media/a.jpg")).hasValueSatisfying(
+                signed -> assertThat(signed.url()).endsWith("/media/a.jpg"));
+        assertThat(signer.sign("media/a.jpg")).isPresent();
+        verify(mediaObjectRepository, times(1)).existsByStorageKeyAndDeletingAtIsNull("media/a.jpg");
+    }
+
+    @Test
+    void signsDerivativeVariants() throws IOException {
+        when(imageDerivativeRepository.existsByVariantKey("media/a.jpg.w320.webp")).thenReturn(true);
+
+        assertThat(signer.sign("media/a.jpg.w320.webp")).isPresent();
+    }
+
+    @Test
+    void refusesUnknownKeys() throws IOException {
+        assertThat(signer.sign("media/unknown.jpg")).isEmpty();
+        verify(storageBackend, never()).authorizePrefix(anyString(), any(Duration.class));
+    }
+
+    @Test
+    void refusesKeysOutsideAllowedPrefixes() throws IOException {
+        when(mediaObjectRepository.existsByStorageKeyAndDeletingAtIsNull(anyString())).thenReturn(true);
+
+        // A key without a directory would need a bucket-wide authorization
+        assertThat(signer.sign("secrets.txt")).isEmpty();
+        assertThat(signer.sign("backups/db.sql")).isEmpty();
+        verify(storageBackend, never()).authorizePrefix(anyString(), any(Duration.class));
+    }
+}
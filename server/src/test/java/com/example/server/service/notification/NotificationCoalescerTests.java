@@ -0,0 +1,135 @@
+package com.example.server.service.notification;
+
+import com.example.server.model.notification.Notification;
+import com.example.server.repository.notification.NotificationRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Coalescing: a window of events becomes one aggregate, merges count each actor once, and a
+ * failed flush keeps its events for the next one.
+ */
+class NotificationCoalescerTests {
+
+    private NotificationRepository notificationRepository;
+    private NotificationCoalescer coalescer;
+    private List<NotificationCoalescer.Flushed> pushed;
+
+    @BeforeEach
+    void setUp() {
+        notificationRepository = mock(NotificationRepository.class);
+        when(notificationRepository.save(any(Notification.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        // Window of zero: everything submitted is due on the next flush
+        coalescer = new NotificationCoalescer(notificationRepository,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)), 0, 3, 24, 3, new SimpleMeterRegistry());
+        pushed = new ArrayList<>();
+    }
+
+    @Test
+    void burstBecomesOneNewAggregate() {
+        noAggregate();
+        coalescer.submit(like(1L));
+        coalescer.submit(like(2L));
+        coalescer.submit(like(1L));
+
+        coalescer.flush(pushed::add);
+
+        assertThat(pushed).hasSize(1);
+        Notification aggregate = pushed.get(0).aggregate();
+        assertThat(pushed.get(0).created()).isTrue();
+        assertThat(aggregate.getActorCount()).isEqualTo(2);
+        assertThat(aggregate.getSampleActorIds()).containsExactly(1L, 2L);
+        assertThat(aggregate.getActorId()).isEqualTo(1L);
+    }
+
+    @Test
+    void mergesIntoUnreadAggregateCountingSampledActorsOnce() {
+        Notification existing = new Notification();
+        existing.setRecipientId(10L);
+        existing.setType("LIKE");
+        existing.setTargetId(5L);
+        existing.setActorCount(7);
+        existing.setSampleActorIds(new ArrayList<>(List.of(3L, 4L)));
+        when(notificationRepository.findFirstByRecipientIdAndTypeAndTargetIdAndIsReadFalseAndUpdatedAtAfterOrderByUpdatedAtDesc(
+                eq(10L), eq("LIKE"), eq(5L), any(LocalDateTime.class))).thenReturn(Optional.of(existing));
+        coalescer.submit(like(3L));
+        coalescer.submit(like(9L));
+
+        coalescer.flush(pushed::add);
+
+        assertThat(pushed.get(0).created()).isFalse();
+        assertThat(existing.getActorCount()).isEqualTo(8);
+        assertThat(existing.getSampleActorIds()).containsExactly(9L, 3L, 4L);
+    }
+
+    @Test
+    void failedFlushKeepsEventsForTheNextOne() {
+        when(notificationRepository.findFirstByRecipientIdAndTypeAndTargetIdAndIsReadFalseAndUpdatedAtAfterOrderByUpdatedAtDesc(
+                anyLong(), anyString(), anyLong(), any(LocalDateTime.class)))
+                .thenThrow(new QueryTimeoutException("timeout"))
+                .thenReturn(Optional.empty());
+        coalescer.submit(like(1L));
+
+        coalescer.flush(pushed::add);
+        assertThat(pushed).isEmpty();
+
+        // Arrived while the first attempt was failing; both are stored together
+        coalescer.submit(like(2L));
+        coalescer.submit(like(1L));
+        coalescer.flush(pushed::add);
+
+        assertThat(pushed).hasSize(1);
+        assertThat(pushed.get(0).aggregate().getActorCount()).isEqualTo(2);
+    }
+
+    @Test
+    void givesUpAfterMaxAttempts() {
+        when(notificationRepository.findFirstByRecipientIdAndTypeAndTargetIdAndIsReadFalseAndUpdatedAtAfterOrderByUpdatedAtDesc(
+                anyLong(), anyString(), anyLong(), any(LocalDateTime.class)))
+                .thenThrow(new QueryTimeoutException("timeout"));
+        coalescer.submit(like(1L));
+
+        for (int i = 0; i < 5; i++) {
+            coalescer.flush(pushed::add);
+        }
+
+        verify(notificationRepository, times(3))
+                .findFirstByRecipientIdAndTypeAndTargetIdAndIsReadFalseAndUpdatedAtAfterOrderByUpdatedAtDesc(
+                        anyLong(), anyString(), anyLong(), any(LocalDateTime.class));
+        verify(notificationRepository, never()).save(any());
+    }
+
+    private void noAggregate() {
+        when(notificationRepository.findFirstByRecipientIdAndTypeAndTargetIdAndIsReadFalseAndUpdatedAtAfterOrderByUpdatedAtDesc(
+                anyLong(), anyString(), anyLong(), any(LocalDateTime.class))).thenReturn(Optional.empty());
+    }
+
+    private static Notification like(Long actorId) {
+        Notification event = new Notification();
+        event.setRecipientId(10L);
+        event.setActorId(actorId);
+        event.setType("LIKE");
+        event.setTargetId(5L);
+        return event;
+    }
+}
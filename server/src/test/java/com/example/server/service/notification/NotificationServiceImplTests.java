@@ -0,0 +1,148 @@
+package com.example.server.service.notification;
+
+import com.example.server.model.notification.Notification;
+import com.example.server.repository.notification.NotificationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Read-state updates: a page cursor marks that page and everything older, batches are bounded
+ * and scoped to the caller, and the unread counter moves by the rows actually updated.
+ */
+class NotificationServiceImplTests {
+
+    private static final long USER = 7L;
+    private static final LocalDateTime T0 = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+    private NotificationRepository notificationRepository;
+    private UnreadCountService unreadCountService;
+    private NotificationServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        notificationRepository = mock(NotificationRepository.class);
+        unreadCountService = mock(UnreadCountService.class);
+        NotificationAssembler assembler = mock(NotificationAssembler.class);
+        when(assembler.assemble(any())).thenReturn(List.of());
+        service = new NotificationServiceImpl();
+        ReflectionTestUtils.setField(service, "notificationRepo", notificationRepository);
+        ReflectionTestUtils.setField(service, "notificationRepository", notificationRepository);
+        ReflectionTestUtils.setField(service, "notificationAssembler", assembler);
+        ReflectionTestUtils.setField(service, "unreadCountService", unreadCountService);
+    }
+
+    @Test
+    void pageCursorMarksTheWholePageIncludingItsLastRow() {
+        // The last two rows of the page share a timestamp, so only the id separates them from the next page
+        when(notificationRepository.findInbox(eq(USER), any(Limit.class)))
+                .thenReturn(List.of(notification(30L, T0.plusMinutes(1)), notification(20L, T0), notification(10L, T0)));
+        String nextCursor = service.getInbox(USER, null, 2).getNextCursor();
+        when(notificationRepository.markReadUpTo(USER, T0, 20L)).thenReturn(2);
+
+        assertThat(service.markAllAsRead(USER, nextCursor)).isEqualTo(2);
+
+        verify(notificationRepository).markReadUpTo(USER, T0, 20L);
+        verify(unreadCountService).adjust(USER, -2);
+    }
+
+    @Test
+    void upToIsInclusiveWhereTheNextPageIsExclusive() throws NoSuchMethodException {
+        String markUpTo = query("markReadUpTo", Long.class, LocalDateTime.class, Long.class);
+        String nextPage = query("findInboxAfter", Long.class, LocalDateTime.class, Long.class, Limit.class);
+
+        // At an equal createdAt the cursor row itself is marked, and is not shown again on the next page
+        assertThat(markUpTo).contains("n.createdAt = :createdAt AND n.id <= :id");
+        assertThat(nextPage).contains("n.createdAt = :createdAt AND n.id < :id");
+        assertThat(markUpTo).contains("n.recipientId = :recipientId").contains("n.isRead = false");
+    }
+
+    @Test
+    void withoutCursorEverythingIsMarked() {
+        when(notificationRepository.markAllRead(USER)).thenReturn(4);
+
+        assertThat(service.markAllAsRead(USER, null)).isEqualTo(4);
+
+        verify(unreadCountService).adjust(USER, -4);
+        verify(notificationRepository, never()).markReadUpTo(anyLong(), any(), anyLong());
+    }
+
+    @Test
+    void batchOverTheLimitIsRejected() {
+        List<Long> ids = LongStream.rangeClosed(1, 501).boxed().toList();
+
+        assertThatThrownBy(() -> service.markAsRead(USER, ids)).isInstanceOf(IllegalArgumentException.class);
+
+        verify(notificationRepository, never()).markReadByIds(anyLong(), anyCollection());
+        verify(unreadCountService, never()).adjust(anyLong(), anyLong());
+    }
+
+    @Test
+    void batchAtTheLimitIsAccepted() {
+        List<Long> ids = LongStream.rangeClosed(1, 500).boxed().toList();
+        when(notificationRepository.markReadByIds(USER, ids)).thenReturn(500);
+
+        assertThat(service.markAsRead(USER, ids)).isEqualTo(500);
+    }
+
+    @Test
+    void idsOfAnotherRecipientAreSkipped() throws NoSuchMethodException {
+        List<Long> ids = List.of(1L, 2L, 3L);
+        // Id 3 belongs to someone else, so the recipient-scoped update leaves it alone
+        when(notificationRepository.markReadByIds(USER, ids)).thenReturn(2);
+
+        assertThat(service.markAsRead(USER, ids)).isEqualTo(2);
+
+        verify(notificationRepository).markReadByIds(USER, ids);
+        assertThat(query("markReadByIds", Long.class, Collection.class)).contains("n.recipientId = :recipientId");
+    }
+
+    @Test
+    void onlyRowsActuallyUpdatedReachTheCounter() {
+        List<Long> ids = List.of(1L, 2L, 3L, 4L);
+        // Two were already read
+        when(notificationRepository.markReadByIds(USER, ids)).thenReturn(2);
+
+        service.markAsRead(USER, ids);
+
+        verify(unreadCountService).adjust(USER, -2);
+    }
+
+    @Test
+    void emptyBatchTouchesNothing() {
+        assertThat(service.markAsRead(USER, List.of())).isZero();
+
+        verify(notificationRepository, never()).markReadByIds(anyLong(), anyCollection());
+        verify(unreadCountService, never()).adjust(anyLong(), anyLong());
+    }
+
+    private static String query(String method, Class<?>... parameterTypes) throws NoSuchMethodException {
+        return NotificationRepository.class.getMethod(method, parameterTypes).getAnnotation(Query.class).value();
+    }
+
+    private static Notification notification(Long id, LocalDateTime createdAt) {
+        Notification notification = new Notification();
+        notification.setId(id);
+        notification.setRecipientId(USER);
+        notification.setCreatedAt(createdAt);
+        return notification;
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.server.service.notification;
+
+import com.example.server.DTO.notification.UnreadCountDTO;
+import com.example.server.repository.notification.NotificationRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unread counters: seeded once and served from memory, re-seeded from the database whenever a
+ * change is pushed so another node's changes are never overwritten, and never negative.
+ */
+class UnreadCountServiceTests {
+
+    private static final long USER = 7L;
+
+    private NotificationRepository notificationRepository;
+    private SimpMessagingTemplate messagingTemplate;
+    private UnreadCountService service;
+
+    @BeforeEach
+    void setUp() {
+        notificationRepository = mock(NotificationRepository.class);
+        messagingTemplate = mock(SimpMessagingTemplate.class);
+        service = new UnreadCountService(notificationRepository, messagingTemplate,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)), 100, 300, new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void counterIsSeededOnceAndThenServedFromMemory() {
+        when(notificationRepository.countByRecipientIdAndIsReadFalse(USER)).thenReturn(3L);
+
+        assertThat(service.unreadCount(USER)).isEqualTo(3);
+        assertThat(service.unreadCount(USER)).isEqualTo(3);
+
+        verify(notificationRepository, times(1)).countByRecipientIdAndIsReadFalse(USER);
+    }
+
+    @Test
+    void changePushesTheCountIncludingOtherNodesChanges() {
+        when(notificationRepository.countByRecipientIdAndIsReadFalse(USER)).thenReturn(3L, 6L);
+        service.unreadCount(USER);
+
+        // Two more arrived through another node; this one adds the third
+        service.adjust(USER, 1);
+
+        UnreadCountDTO pushed = lastPush();
+        assertThat(pushed.getUnread()).isEqualTo(6);
+        assertThat(pushed.getDelta()).isEqualTo(1);
+        assertThat(service.unreadCount(USER)).isEqualTo(6);
+    }
+
+    @Test
+    void changeWaitsForTheCommit() {
+        when(notificationRepository.countByRecipientIdAndIsReadFalse(USER)).thenReturn(1L);
+        TransactionSynchronizationManager.initSynchronization();
+
+        service.adjust(USER, 1);
+        verify(messagingTemplate, never()).convertAndSendToUser(anyString(), anyString(), any());
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        assertThat(lastPush().getUnread()).isEqualTo(1);
+    }
+
+    @Test
+    void localCounterIsClampedWhenTheDatabaseCannotBeReached() {
+        when(notificationRepository.countByRecipientIdAndIsReadFalse(USER))
+                .thenReturn(1L)
+                .thenThrow(new QueryTimeoutException("timeout"));
+        service.unreadCount(USER);
+
+        service.adjust(USER, -3);
+
+        assertThat(lastPush().getUnread()).isZero();
+        assertThat(service.unreadCount(USER)).isZero();
+    }
+
+    @Test
+    void nothingIsPushedWithoutAnyCount() {
+        when(notificationRepository.countByRecipientIdAndIsReadFalse(USER)).thenThrow(new QueryTimeoutException("timeout"));
+
+        service.adjust(USER, 1);
+
+        verify(messagingTemplate, never()).convertAndSendToUser(anyString(), anyString(), any());
+    }
+
+    @Test
+    void zeroDeltaIsIgnored() {
+        service.adjust(USER, 0);
+
+        verify(notificationRepository, never()).countByRecipientIdAndIsReadFalse(USER);
+        verify(messagingTemplate, never()).convertAndSendToUser(anyString(), anyString(), any());
+    }
+
+    private UnreadCountDTO lastPush() {
+        ArgumentCaptor<Object> payload = ArgumentCaptor.forClass(Object.class);
+        verify(messagingTemplate, atLeastOnce())
+                .convertAndSendToUser(eq(String.valueOf(USER)), eq(UnreadCountService.DESTINATION), payload.capture());
+        return (UnreadCountDTO) payload.getValue();
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.server.service.post;
+
+import com.example.server.DTO.post.CommentResponseDTO;
+import com.example.server.repository.post.CommentRepository;
+import com.example.server.repository.post.CommentRow;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tree building from flat rows: replies hang under their parents, only parentless rows
+ * are roots, and a page reads its roots and their capped replies in two queries.
+ */
+class CommentTreeLoaderTests {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+    private CommentRepository commentRepository;
+    private CommentTreeLoader loader;
+
+    @BeforeEach
+    void setUp() {
+        commentRepository = mock(CommentRepository.class);
+        loader = new CommentTreeLoader(commentRepository);
+    }
+
+    @Test
+    void linksWholeThreadIntoTree() {
+        // A reply listed before its parent still lands under it
+        when(commentRepository.findThreadRows(1L)).thenReturn(List.of(
+                row(3L, 2L, 2),
+                row(1L, null, 0),
+                row(2L, 1L, 1),
+                row(4L, null, 3)));
+
+        List<CommentResponseDTO> roots = loader.loadAll(1L);
+
+        assertThat(roots).extracting(CommentResponseDTO::getId).containsExactly(1L, 4L);
+        CommentResponseDTO reply = roots.get(0).getReplies().get(0);
+        assertThat(reply.getId()).isEqualTo(2L);
+        assertThat(reply.getReplies()).extracting(CommentResponseDTO::getId).containsExactly(3L);
+        assertThat(roots.get(1).getReplies()).isEmpty();
+    }
+
+    @Test
+    void pagesRootsAndFetchesRepliesUpToDepthCap() {
+        when(commentRepository.findRootRows(1L, PageRequest.of(2, 2))).thenReturn(List.of(
+                row(10L, null, 0),
+                row(20L, null, 1)));
+        when(commentRepository.findReplyRows(List.of(10L, 20L), 1)).thenReturn(List.of(
+                new Object[]{11L, 10L, "reply", "bob", Timestamp.valueOf(T0.plusMinutes(5))},
+                new Object[]{21, 20, "reply", "carol", T0.plusMinutes(6)}));
+
+        List<CommentResponseDTO> roots = loader.load(1L, 2, 2, 1);
+
+        assertThat(roots).extracting(CommentResponseDTO::getId).containsExactly(10L, 20L);
+        assertThat(roots.get(0).getReplies()).extracting(CommentResponseDTO::getId).containsExactly(11L);
+        assertThat(roots.get(0).getReplies().get(0).getCreatedAt()).isEqualTo(T0.plusMinutes(5));
+        assertThat(roots.get(1).getReplies()).extracting(CommentResponseDTO::getId).containsExactly(21L);
+        verify(commentRepository, never()).findThreadRows(1L);
+    }
+
+    @Test
+    void capsDepthEvenIfDeeperRepliesAreReturned() {
+        when(commentRepository.findRootRows(1L, PageRequest.of(0, 10))).thenReturn(List.of(row(1L, null, 0)));
+        when(commentRepository.findReplyRows(List.of(1L), 1)).thenReturn(List.of(
+                new Object[]{2L, 1L, "reply", "bob", T0},
+                new Object[]{3L, 2L, "nested", "carol", T0}));
+
+        List<CommentResponseDTO> roots = loader.load(1L, 0, 10, 1);
+
+        assertThat(roots.get(0).getReplies()).hasSize(1);
+        assertThat(roots.get(0).getReplies().get(0).getReplies()).isEmpty();
+    }
+
+    @Test
+    void depthZeroSkipsReplyQuery() {
+        when(commentRepository.findRootRows(1L, PageRequest.of(0, 10))).thenReturn(List.of(row(1L, null, 0)));
+
+        List<CommentResponseDTO> roots = loader.load(1L, 0, 10, 0);
+
+        assertThat(roots).hasSize(1);
+        verify(commentRepository, never()).findReplyRows(anyCollection(), anyInt());
+    }
+
+    @Test
+    void emptyPageSkipsReplyQuery() {
+        when(commentRepository.findRootRows(1L, PageRequest.of(5, 10))).thenReturn(List.of());
+
+        assertThat(loader.load(1L, 5, 10, 3)).isEmpty();
+        verify(commentRepository, never()).findReplyRows(anyCollection(), anyInt());
+    }
+
+    private static CommentRow row(Long id, Long parentId, int minute) {
+        return new CommentRow(id, parentId, "comment " + id, "alice", T0.plusMinutes(minute));
+    }
+}
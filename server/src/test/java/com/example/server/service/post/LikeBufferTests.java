@@ -0,0 +1,205 @@
+package com.example.server.service.post;
+
+import com.example.server.repository.post.LikeRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Toggle bookkeeping, flushing and log replay of the write-behind like buffer, against
+ * mocked JDBC and a write-ahead log in a temporary directory.
+ */
+class LikeBufferTests {
+
+    @TempDir
+    Path dir;
+
+    private LikeRepository likeRepository;
+    private PostCounters postCounters;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private Path walPath;
+    private LikeBuffer buffer;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        likeRepository = mock(LikeRepository.class);
+        postCounters = mock(PostCounters.class);
+        jdbcTemplate = mock(JdbcTemplate.class);
+        transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+        // Every statement affects its one row
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenAnswer(invocation -> {
+            int[] counts = new int[((List<?>) invocation.getArgument(1)).size()];
+            Arrays.fill(counts, 1);
+            return counts;
+        });
+        walPath = dir.resolve("likes.wal");
+        buffer = newBuffer();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        buffer.shutdown();
+    }
+
+    @Test
+    void toggleFlipsBufferedStateAndPendingDelta() {
+        when(likeRepository.existsByPostIdAndUserId(1L, 10L)).thenReturn(false);
+
+        assertThat(buffer.toggle(1L, 10L)).isTrue();
+        assertThat(buffer.bufferedState(1L, 10L)).isTrue();
+        assertThat(buffer.pendingDelta(1L)).isEqualTo(1L);
+
+        assertThat(buffer.toggle(1L, 10L)).isFalse();
+        assertThat(buffer.pendingDelta(1L)).isZero();
+        // The second toggle works from the buffered state
+        verify(likeRepository, times(1)).existsByPostIdAndUserId(1L, 10L);
+    }
+
+    @Test
+    void flushWritesNetChangesAndSettlesCounters() throws IOException {
+        when(likeRepository.existsByPostIdAndUserId(1L, 10L)).thenReturn(false);
+        when(likeRepository.existsByPostIdAndUserId(2L, 11L)).thenReturn(true);
+        buffer.toggle(1L, 10L);
+        buffer.toggle(2L, 11L);
+
+        buffer.flush();
+
+        verify(jdbcTemplate).batchUpdate(startsWith("INSERT INTO likes"), rows(1));
+        verify(jdbcTemplate).batchUpdate(startsWith("DELETE FROM likes"), rows(1));
+        verify(postCounters).adjustLikes(Map.of(1L, 1L, 2L, -1L));
+        assertThat(buffer.pendingDelta(1L)).isZero();
+        assertThat(buffer.pendingDelta(2L)).isZero();
+        assertThat(buffer.bufferedState(1L, 10L)).isNull();
+        assertThat(logContents()).isEmpty();
+    }
+
+    @Test
+    void toggleBackBeforeFlushWritesNothing() {
+        when(likeRepository.existsByPostIdAndUserId(1L, 10L)).thenReturn(false);
+        buffer.toggle(1L, 10L);
+        buffer.toggle(1L, 10L);
+
+        buffer.flush();
+
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+    }
+
+    @Test
+    void failedFlushKeepsTogglesForTheNextOne() {
+        when(likeRepository.existsByPostIdAndUserId(1L, 10L)).thenReturn(false);
+        buffer.toggle(1L, 10L);
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenThrow(new QueryTimeoutException("timeout"));
+
+        buffer.flush();
+
+        assertThat(buffer.bufferedState(1L, 10L)).isTrue();
+        assertThat(buffer.pendingDelta(1L)).isEqualTo(1L);
+
+        reset(jdbcTemplate);
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenReturn(new int[]{1});
+        buffer.flush();
+
+        verify(postCounters).adjustLikes(Map.of(1L, 1L));
+        assertThat(buffer.pendingDelta(1L)).isZero();
+    }
+
+    @Test
+    void likeInsertedConcurrentlyIsNotCountedTwice() {
+        when(likeRepository.existsByPostIdAndUserId(1L, 10L)).thenReturn(false);
+        buffer.toggle(1L, 10L);
+        // Another node or a sync toggle got there first; ON CONFLICT DO NOTHING affects no row
+        when(jdbcTemplate.batchUpdate(startsWith("INSERT INTO likes"), anyList())).thenReturn(new int[]{0});
+
+        buffer.flush();
+
+        verify(jdbcTemplate).batchUpdate(contains("ON CONFLICT (post_id, user_id) DO NOTHING"), rows(1));
+        verify(postCounters).adjustLikes(Map.of(1L, 0L));
+        assertThat(buffer.pendingDelta(1L)).isZero();
+    }
+
+    @Test
+    void replaysUnflushedTogglesAfterRestart() throws IOException {
+        when(likeRepository.existsByPostIdAndUserId(anyLong(), anyLong())).thenReturn(false);
+        buffer.toggle(1L, 10L);
+        buffer.toggle(2L, 11L);
+        buffer.toggle(2L, 11L);
+
+        // Simulates a crash: nothing is flushed, the next instance starts from the logs
+        LikeBuffer restarted = newBuffer();
+        try {
+            assertThat(restarted.bufferedState(1L, 10L)).isTrue();
+            assertThat(restarted.bufferedState(2L, 11L)).isFalse();
+            // Persisted state is unknown after a crash, so replayed toggles are not in the counters
+            assertThat(restarted.pendingDelta(1L)).isZero();
+
+            restarted.flush();
+
+            verify(jdbcTemplate).batchUpdate(startsWith("INSERT INTO likes"), rows(1));
+            verify(jdbcTemplate).batchUpdate(startsWith("DELETE FROM likes"), rows(1));
+        } finally {
+            restarted.shutdown();
+        }
+    }
+
+    @Test
+    void replaysSingleFileLogAndSkipsTornTail() throws IOException {
+        buffer.shutdown();
+        Files.writeString(walPath, "5 6 1\n7 8 0\n9 1", StandardCharsets.US_ASCII);
+
+        buffer = newBuffer();
+
+        assertThat(buffer.bufferedState(5L, 6L)).isTrue();
+        assertThat(buffer.bufferedState(7L, 8L)).isFalse();
+        assertThat(buffer.bufferedState(9L, 1L)).isNull();
+        assertThat(walPath).doesNotExist();
+        verify(likeRepository, never()).existsByPostIdAndUserId(eq(5L), anyLong());
+    }
+
+    private static List<Object[]> rows(int count) {
+        return argThat(args -> args != null && args.size() == count);
+    }
+
+    private LikeBuffer newBuffer() throws IOException {
+        LikeBuffer likeBuffer = new LikeBuffer(likeRepository, postCounters, jdbcTemplate, transactionTemplate,
+                walPath.toString(), false, 4);
+        likeBuffer.init();
+        return likeBuffer;
+    }
+
+    private String logContents() throws IOException {
+        StringBuilder contents = new StringBuilder();
+        for (int i = 0; i < 4; i++) {
+            contents.append(Files.readString(dir.resolve("likes.wal." + i), StandardCharsets.US_ASCII));
+        }
+        return contents.toString();
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.server.service.post;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Run scheduling of the counter reconciler: the first run and every Nth run check all posts,
+ * the runs in between only posts whose counters changed.
+ */
+class PostCounterReconcilerTests {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+    private JdbcTemplate jdbcTemplate;
+    private PostCounterReconciler reconciler;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        when(jdbcTemplate.queryForObject("SELECT LOCALTIMESTAMP", LocalDateTime.class)).thenReturn(T0);
+        when(jdbcTemplate.query(any(String.class), any(RowMapper.class), any(), any())).thenReturn(List.of());
+        when(jdbcTemplate.query(any(String.class), any(RowMapper.class), any(), any(), any())).thenReturn(List.of());
+        reconciler = new PostCounterReconciler(jdbcTemplate, mock(PostCounters.class), 500, 60_000, 3);
+    }
+
+    @Test
+    void checksEveryPostOnFirstAndEveryNthRun() {
+        for (int i = 0; i < 6; i++) {
+            reconciler.reconcile();
+        }
+
+        // Runs 1 and 4 are full sweeps, the other four incremental
+        verify(jdbcTemplate, times(2)).query(any(String.class), any(RowMapper.class), eq(0L), eq(500));
+        verify(jdbcTemplate, times(4)).query(contains("counters_updated_at >= ?"), any(RowMapper.class),
+                eq(0L), eq(T0.minusMinutes(1)), eq(500));
+    }
+}
@@ -0,0 +1,156 @@
+package com.example.server.service.post;
+
+import com.example.server.DTO.post.PostDTO;
+import com.example.server.model.media.ImageDerivative;
+import com.example.server.model.media.ImageVariant;
+import com.example.server.model.post.ContentBlock;
+import com.example.server.model.post.ContentType;
+import com.example.server.model.post.Post;
+import com.example.server.model.user.User;
+import com.example.server.repository.media.ImageDerivativeRepository;
+import com.example.server.repository.post.ContentBlockRepository;
+import com.example.server.repository.post.LikeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Guards against the per-post N+1 pattern: assembling a feed must cost the same
+ * number of repository round trips whether it holds one post or five hundred.
+ */
+class PostFeedAssemblerTests {
+
+    private static final int FEED_SIZE = 500;
+
+    private ContentBlockRepository contentBlockRepository;
+    private LikeRepository likeRepository;
+    private ImageDerivativeRepository imageDerivativeRepository;
+    private PostFeedAssembler assembler;
+
+    @BeforeEach
+    void setUp() {
+        contentBlockRepository = mock(ContentBlockRepository.class);
+        likeRepository = mock(LikeRepository.class);
+        imageDerivativeRepository = mock(ImageDerivativeRepository.class);
+        assembler = new PostFeedAssembler(contentBlockRepository, likeRepository, imageDerivativeRepository, null);
+    }
+
+    @Test
+    void assemblesFeedWithFixedNumberOfQueries() {
+        List<Post> posts = new ArrayList<>();
+        List<ContentBlock> blocks = new ArrayList<>();
+        for (long id = 1; id <= FEED_SIZE; id++) {
+            Post post = post(id);
+            post.setLikeCount(id == 1 ? 7 : 0);
+            post.setCommentCount(id == 2 ? 3 : 0);
+            posts.add(post);
+            blocks.add(block(post, 0));
+            blocks.add(image(post, 1));
+        }
+        ImageDerivative derivative = new ImageDerivative();
+        derivative.setSourceUrl("https://cdn/1.jpg");
+        derivative.setVariants(List.of(new ImageVariant(320, "1.jpg.w320.jpg", "https://cdn/1.jpg.w320.jpg")));
+        when(contentBlockRepository.findByPostIdIn(anyCollection())).thenReturn(blocks);
+        when(imageDerivativeRepository.findBySourceUrlIn(anyCollection())).thenReturn(List.of(derivative));
+        when(likeRepository.findLikedPostIds(eq(42L), anyCollection())).thenReturn(List.of(1L));
+
+        List<PostDTO> feed = assembler.assemble(posts, 42L);
+
+        assertThat(feed).hasSize(FEED_SIZE);
+        assertThat(feed.get(0).isLiked()).isTrue();
+        assertThat(feed.get(0).getLikeCount()).isEqualTo(7L);
+        assertThat(feed.get(1).isLiked()).isFalse();
+        assertThat(feed.get(1).getCommentCount()).isEqualTo(3L);
+        assertThat(feed.get(FEED_SIZE - 1).getContentBlocks()).hasSize(2);
+        assertThat(feed.get(0).getContentBlocks().get(1).getSrcset()).isEqualTo("https://cdn/1.jpg.w320.jpg 320w");
+        assertThat(feed.get(1).getContentBlocks().get(1).getSrcset()).isNull();
+
+        verify(contentBlockRepository, times(1)).findByPostIdIn(anyCollection());
+        verify(likeRepository, times(1)).findLikedPostIds(eq(42L), anyCollection());
+        verify(likeRepository, never()).countByPostId(anyLong());
+        verify(likeRepository, never()).existsByPostIdAndUserId(anyLong(), anyLong());
+        verify(imageDerivativeRepository, times(1)).findBySourceUrlIn(anyCollection());
+        verifyNoMoreInteractions(contentBlockRepository, likeRepository, imageDerivativeRepository);
+    }
+
+    @Test
+    void overlaysBufferedLikesOnCountsAndLikedSet() {
+        LikeBuffer likeBuffer = mock(LikeBuffer.class);
+        assembler = new PostFeedAssembler(contentBlockRepository, likeRepository, imageDerivativeRepository, likeBuffer);
+        Post liked = post(1L);
+        liked.setLikeCount(7);
+        Post unliked = post(2L);
+        unliked.setLikeCount(3);
+        when(likeRepository.findLikedPostIds(eq(42L), anyCollection())).thenReturn(List.of(1L));
+        // Viewer unliked post 1 and liked post 2; neither toggle is flushed yet
+        when(likeBuffer.bufferedState(1L, 42L)).thenReturn(false);
+        when(likeBuffer.bufferedState(2L, 42L)).thenReturn(true);
+        when(likeBuffer.pendingDelta(1L)).thenReturn(-1L);
+        when(likeBuffer.pendingDelta(2L)).thenReturn(1L);
+
+        List<PostDTO> feed = assembler.assemble(List.of(liked, unliked), 42L);
+
+        assertThat(feed.get(0).isLiked()).isFalse();
+        assertThat(feed.get(0).getLikeCount()).isEqualTo(6L);
+        assertThat(feed.get(1).isLiked()).isTrue();
+        assertThat(feed.get(1).getLikeCount()).isEqualTo(4L);
+    }
+
+    @Test
+    void anonymousViewerSkipsLikedSetQuery() {
+        assembler.assemble(List.of(post(1L)), null);
+
+        verify(likeRepository, never()).findLikedPostIds(any(), anyCollection());
+    }
+
+    @Test
+    void emptyFeedIssuesNoQueries() {
+        assertThat(assembler.assemble(List.of(), 42L)).isEmpty();
+
+        verifyNoMoreInteractions(contentBlockRepository, likeRepository, imageDerivativeRepository);
+    }
+
+    private static Post post(long id) {
+        User author = new User();
+        author.setId(id % 10);
+        author.setUsername("user" + id % 10);
+        Post post = new Post();
+        post.setId(id);
+        post.setUser(author);
+        post.setTitle("Post " + id);
+        post.setPublished(true);
+        return post;
+    }
+
+    private static ContentBlock block(Post post, int position) {
+        ContentBlock block = new ContentBlock();
+        block.setPost(post);
+        block.setType(ContentType.PARAGRAPH);
+        block.setContent("text");
+        block.setPosition(position);
+        return block;
+    }
+
+    private static ContentBlock image(Post post, int position) {
+        ContentBlock block = new ContentBlock();
+        block.setPost(post);
+        block.setType(ContentType.IMAGE);
+        block.setUrl("https://cdn/" + post.getId() + ".jpg");
+        block.setPosition(position);
+        return block;
+    }
+}
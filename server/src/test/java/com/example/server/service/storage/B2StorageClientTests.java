@@ -0,0 +1,119 @@
+package com.example.server.service.storage;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.core.io.ByteArrayResource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the client against an in-process stub of the B2 API: the account is authorized once,
+ * upload URLs are reused between uploads, and a URL that failed is never handed out again.
+ */
+class B2StorageClientTests {
+
+    private static final byte[] CONTENT = "hello".getBytes(StandardCharsets.UTF_8);
+
+    private HttpServer server;
+    private String baseUrl;
+    private final AtomicInteger authorizations = new AtomicInteger();
+    private final AtomicInteger uploadUrlsIssued = new AtomicInteger();
+    private final List<String> uploadsReceived = new CopyOnWriteArrayList<>();
+    // Statuses returned by the next uploads, in order; 200 once empty
+    private final Queue<Integer> uploadStatuses = new ConcurrentLinkedQueue<>();
+
+    private B2StorageClient client;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+        server.createContext("/authorize", exchange -> {
+            authorizations.incrementAndGet();
+            respond(exchange, 200, "{\"apiUrl\":\"" + baseUrl + "\",\"authorizationToken\":\"account\","
+                    + "\"downloadUrl\":\"" + baseUrl + "\"}");
+        });
+        server.createContext("/b2api/v2/b2_get_upload_url", exchange -> {
+            int n = uploadUrlsIssued.incrementAndGet();
+            respond(exchange, 200, "{\"uploadUrl\":\"" + baseUrl + "/upload/" + n + "\",\"authorizationToken\":\"upload-" + n + "\"}");
+        });
+        server.createContext("/upload/", exchange -> {
+            uploadsReceived.add(exchange.getRequestURI().getPath());
+            Integer status = uploadStatuses.poll();
+            if (status != null && status != 200) {
+                respond(exchange, status, "{\"code\":\"failed\"}");
+            } else {
+                respond(exchange, 200, "{\"fileId\":\"id\",\"fileName\":\"a.txt\"}");
+            }
+        });
+        server.start();
+
+        client = new B2StorageClient(new ObjectMapper(), baseUrl + "/authorize", "key-id", "app-key",
+                "bucket-id", "bucket", 104857600, 104857600, 10000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void authorizesOnceAndReusesTheUploadUrl() throws IOException {
+        upload();
+        upload();
+        upload();
+
+        assertThat(authorizations).hasValue(1);
+        assertThat(uploadUrlsIssued).hasValue(1);
+        assertThat(uploadsReceived).containsExactly("/upload/1", "/upload/1", "/upload/1");
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {401, 503})
+    void failedUploadUrlIsEvictedFromThePool(int status) throws IOException {
+        upload();
+        uploadStatuses.add(status);
+
+        upload();
+        upload();
+
+        // The retry fetched a fresh URL, and the failed one was never used again
+        assertThat(uploadUrlsIssued).hasValue(2);
+        assertThat(uploadsReceived).containsExactly("/upload/1", "/upload/1", "/upload/2", "/upload/2");
+        assertThat(authorizations).hasValue(1);
+    }
+
+    private void upload() throws IOException {
+        B2File file = client.upload(new ByteArrayResource(CONTENT), CONTENT.length, "a.txt", "text/plain");
+        assertThat(file.fileId()).isEqualTo("id");
+    }
+
+    private static void respond(HttpExchange exchange, int status, String json) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            in.readAllBytes();
+        }
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.server.service.timeline;
+
+import com.example.server.repository.post.PostRef;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The ring keeps the newest {@code capacity} pushes, newest first, across wraparound.
+ */
+class HomeTimelineTests {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+    @Test
+    void snapshotIsNewestFirstBeforeFilling() {
+        HomeTimeline timeline = new HomeTimeline(4, List.of());
+        push(timeline, 1, 2, 3);
+
+        assertThat(ids(timeline)).containsExactly(3L, 2L, 1L);
+    }
+
+    @Test
+    void overwritesOldestEntriesOnceFull() {
+        HomeTimeline timeline = new HomeTimeline(3, List.of());
+        push(timeline, 1, 2, 3, 4, 5);
+
+        assertThat(ids(timeline)).containsExactly(5L, 4L, 3L);
+    }
+
+    @Test
+    void keepsOrderAcrossSeveralWraps() {
+        HomeTimeline timeline = new HomeTimeline(3, List.of());
+        for (long id = 1; id <= 10; id++) {
+            push(timeline, id);
+        }
+
+        assertThat(ids(timeline)).containsExactly(10L, 9L, 8L);
+    }
+
+    @Test
+    void emptyTimelineHasEmptySnapshot() {
+        HomeTimeline timeline = new HomeTimeline(3, List.of(7L));
+
+        assertThat(timeline.snapshot()).isEmpty();
+        assertThat(timeline.getHeavyFollowees()).containsExactly(7L);
+    }
+
+    private static void push(HomeTimeline timeline, long... ids) {
+        for (long id : ids) {
+            timeline.push(new PostRef(id, T0.plusMinutes(id)));
+        }
+    }
+
+    private static List<Long> ids(HomeTimeline timeline) {
+        return timeline.snapshot().stream().map(PostRef::getId).toList();
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.server.service.timeline;
+
+import com.example.server.model.timeline.TimelineEvent;
+import com.example.server.repository.post.PostRef;
+import com.example.server.repository.post.PostRepository;
+import com.example.server.repository.timeline.TimelineEventRepository;
+import com.example.server.repository.user.FollowRepository;
+import com.example.server.service.post.PostFeedAssembler;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Timelines are held per instance: changes made here apply after commit, and changes recorded
+ * by other instances reach the timelines held here through the event sync, each exactly once.
+ */
+class TimelineServiceImplTests {
+
+    private static final long AUTHOR = 1L;
+    private static final long FOLLOWER = 2L;
+    private static final LocalDateTime T0 = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+    private PostRepository postRepository;
+    private FollowRepository followRepository;
+    private TimelineEventRepository timelineEventRepository;
+    private TimelineServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        postRepository = mock(PostRepository.class);
+        followRepository = mock(FollowRepository.class);
+        timelineEventRepository = mock(TimelineEventRepository.class);
+        AtomicLong ids = new AtomicLong();
+        when(timelineEventRepository.save(any(TimelineEvent.class))).thenAnswer(invocation -> {
+            TimelineEvent event = invocation.getArgument(0);
+            event.setId(ids.incrementAndGet());
+            return event;
+        });
+        when(followRepository.findFollowerIds(AUTHOR)).thenReturn(List.of(FOLLOWER));
+        when(followRepository.findHeavyFolloweeIds(anyLong(), anyLong())).thenReturn(List.of());
+        when(postRepository.findFolloweeFeedRefs(any(), any())).thenReturn(new ArrayList<>());
+        when(postRepository.findByIdIn(any())).thenReturn(List.of());
+        service = new TimelineServiceImpl(postRepository, followRepository, timelineEventRepository,
+                mock(PostFeedAssembler.class), Runnable::run, 500, 10_000, 1_000, 60);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void postPublishedOnAnotherInstanceIsPushedToResidentTimelines() {
+        assertThat(readIds()).isEmpty();
+
+        when(timelineEventRepository.findSince(any())).thenReturn(List.of(published(100L, 10L)));
+        service.sync();
+
+        assertThat(readIds()).containsExactly(10L);
+    }
+
+    @Test
+    void syncSkipsEventsThisInstanceAlreadyApplied() {
+        readIds();
+        service.onPostPublished(10L, AUTHOR, T0);
+        ArgumentCaptor<TimelineEvent> saved = ArgumentCaptor.forClass(TimelineEvent.class);
+        verify(timelineEventRepository).save(saved.capture());
+
+        when(timelineEventRepository.findSince(any())).thenReturn(List.of(saved.getValue()));
+        service.sync();
+        service.sync();
+
+        verify(followRepository, times(1)).findFollowerIds(AUTHOR);
+        assertThat(readIds()).containsExactly(10L);
+    }
+
+    @Test
+    void followChangeOnAnotherInstanceDropsTheResidentTimeline() {
+        readIds();
+        verify(postRepository, times(1)).findFolloweeFeedRefs(any(), any());
+
+        TimelineEvent event = new TimelineEvent();
+        event.setId(200L);
+        event.setType(TimelineEvent.Type.FOLLOWS_CHANGED);
+        event.setUserId(FOLLOWER);
+        event.setCreatedAt(T0);
+        when(timelineEventRepository.findSince(any())).thenReturn(List.of(event));
+        service.sync();
+        readIds();
+
+        verify(postRepository, times(2)).findFolloweeFeedRefs(any(), any());
+    }
+
+    @Test
+    void invalidationWaitsForTheCommit() {
+        readIds();
+        TransactionSynchronizationManager.initSynchronization();
+        service.invalidate(FOLLOWER);
+
+        // A read racing the transaction must not rebuild from the uncommitted follow graph
+        readIds();
+        verify(postRepository, times(1)).findFolloweeFeedRefs(any(), any());
+
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+        readIds();
+
+        verify(postRepository, times(2)).findFolloweeFeedRefs(any(), any());
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Long> readIds() {
+        service.getHomeTimeline(FOLLOWER, null, 20);
+        ArgumentCaptor<Collection<Long>> ids = ArgumentCaptor.forClass(Collection.class);
+        verify(postRepository, atLeastOnce()).findByIdIn(ids.capture());
+        return List.copyOf(ids.getValue());
+    }
+
+    private static TimelineEvent published(Long eventId, Long postId) {
+        TimelineEvent event = new TimelineEvent();
+        event.setId(eventId);
+        event.setType(TimelineEvent.Type.POST_PUBLISHED);
+        event.setUserId(AUTHOR);
+        event.setPostId(postId);
+        event.setPostCreatedAt(T0);
+        event.setCreatedAt(T0);
+        return event;
+    }
+}